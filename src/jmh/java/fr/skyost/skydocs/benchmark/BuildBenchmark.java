@@ -0,0 +1,110 @@
+package fr.skyost.skydocs.benchmark;
+
+import fr.skyost.skydocs.command.BuildCommand;
+import fr.skyost.skydocs.utils.ProjectGenerator;
+import fr.skyost.skydocs.utils.Utils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks a full build of a synthetic project (project loading included).
+ */
+
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BuildBenchmark {
+
+	/**
+	 * The number of pages.
+	 */
+
+	@Param({"100", "1000"})
+	public int pages;
+
+	/**
+	 * The number of root menu entries.
+	 */
+
+	@Param({"10"})
+	public int menuRootEntries;
+
+	/**
+	 * The menu fan-out.
+	 */
+
+	@Param({"3"})
+	public int menuFanOut;
+
+	/**
+	 * The menu depth.
+	 */
+
+	@Param({"3"})
+	public int menuDepth;
+
+	/**
+	 * The include depth.
+	 */
+
+	@Param({"2"})
+	public int includeDepth;
+
+	/**
+	 * The number of threads.
+	 */
+
+	@Param({"1", "4"})
+	public int threads;
+
+	/**
+	 * The synthetic project.
+	 */
+
+	private ProjectGenerator generator;
+
+	/**
+	 * Writes the synthetic project.
+	 *
+	 * @throws Exception If any exception occurs while writing the project.
+	 */
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		generator = new ProjectGenerator(Files.createTempDirectory("skydocs-jmh").toFile(), 42L);
+		generator.setPages(pages);
+		generator.setMenuRootEntries(menuRootEntries);
+		generator.setMenuFanOut(menuFanOut);
+		generator.setMenuDepth(menuDepth);
+		generator.setIncludeDepth(includeDepth);
+		generator.generate();
+	}
+
+	/**
+	 * Deletes the synthetic project.
+	 */
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		Utils.deleteDirectory(generator.getDirectory());
+	}
+
+	/**
+	 * Loads and builds the synthetic project.
+	 *
+	 * @return The build result.
+	 */
+
+	@Benchmark
+	public Boolean build() {
+		final BuildCommand command = new BuildCommand(true, (PrintStream)null, "-directory", generator.getDirectory().getPath(), "-threads", String.valueOf(threads));
+		return command.run(false);
+	}
+
+}
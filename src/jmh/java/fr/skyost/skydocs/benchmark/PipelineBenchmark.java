@@ -0,0 +1,247 @@
+package fr.skyost.skydocs.benchmark;
+
+import fr.skyost.skydocs.DocsMenu;
+import fr.skyost.skydocs.DocsPage;
+import fr.skyost.skydocs.DocsProject;
+import fr.skyost.skydocs.utils.ProjectGenerator;
+import fr.skyost.skydocs.utils.Utils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the hot paths of the build pipeline on a single page of a synthetic project.
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PipelineBenchmark {
+
+	/**
+	 * The number of pages.
+	 */
+
+	@Param({"100"})
+	public int pages;
+
+	/**
+	 * The number of root menu entries.
+	 */
+
+	@Param({"10"})
+	public int menuRootEntries;
+
+	/**
+	 * The menu fan-out.
+	 */
+
+	@Param({"3"})
+	public int menuFanOut;
+
+	/**
+	 * The menu depth.
+	 */
+
+	@Param({"3"})
+	public int menuDepth;
+
+	/**
+	 * The include depth.
+	 */
+
+	@Param({"2"})
+	public int includeDepth;
+
+	/**
+	 * The number of paragraphs per page.
+	 */
+
+	@Param({"40"})
+	public int paragraphs;
+
+	/**
+	 * The synthetic project.
+	 */
+
+	private ProjectGenerator generator;
+
+	/**
+	 * The loaded project.
+	 */
+
+	private DocsProject project;
+
+	/**
+	 * The benchmarked page.
+	 */
+
+	private DocsPage page;
+
+	/**
+	 * The menu of the benchmarked page.
+	 */
+
+	private DocsMenu menu;
+
+	/**
+	 * Where the page is written.
+	 */
+
+	private File output;
+
+	/**
+	 * The rendered content of the page.
+	 */
+
+	private String content;
+
+	/**
+	 * The header of the page.
+	 */
+
+	private String header;
+
+	/**
+	 * Writes and loads the synthetic project.
+	 *
+	 * @throws Exception If any exception occurs while creating the project.
+	 */
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		generator = new ProjectGenerator(Files.createTempDirectory("skydocs-jmh").toFile(), 42L);
+		generator.setPages(pages);
+		generator.setMenuRootEntries(menuRootEntries);
+		generator.setMenuFanOut(menuFanOut);
+		generator.setMenuDepth(menuDepth);
+		generator.setIncludeDepth(includeDepth);
+		generator.setParagraphs(paragraphs);
+		project = DocsProject.loadFromDirectory(generator.generate()).a;
+
+		final List<DocsPage> pages = new ArrayList<>(project.getPages());
+		Collections.sort(pages);
+		page = pages.get(pages.size() / 2);
+		menu = project.getMenuByLanguage(page.getLanguage());
+		output = File.createTempFile("skydocs-jmh", ".html");
+		content = page.getContent();
+		header = Utils.separateFileHeader(page.getFile())[0];
+	}
+
+	/**
+	 * Deletes the synthetic project.
+	 *
+	 * @throws IOException If any exception occurs while deleting the project.
+	 */
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		Utils.deleteDirectory(generator.getDirectory());
+		Files.deleteIfExists(output.toPath());
+	}
+
+	/**
+	 * Reads a page file and separates its header from its content.
+	 *
+	 * @return The header and the content.
+	 */
+
+	@Benchmark
+	public String[] separateFileHeader() {
+		return Utils.separateFileHeader(page.getFile());
+	}
+
+	/**
+	 * Renders the content of a page (Jtwig and CommonMark).
+	 *
+	 * @return The rendered content.
+	 */
+
+	@Benchmark
+	public String getContent() {
+		page.clearRenderedContent();
+		return page.getContent();
+	}
+
+	/**
+	 * Compiles and renders the menu of a page (first page of a build).
+	 *
+	 * @return The rendered menu.
+	 */
+
+	@Benchmark
+	public String menuToHTML() {
+		menu.invalidate();
+		return page.getMenu();
+	}
+
+	/**
+	 * Renders the menu of a page once it has been compiled (other pages of a build).
+	 *
+	 * @return The rendered menu.
+	 */
+
+	@Benchmark
+	public String menuToHTMLCompiled() {
+		return page.getMenu();
+	}
+
+	/**
+	 * Renders a page with the theme template and writes it.
+	 *
+	 * @return The written file.
+	 *
+	 * @throws IOException If any exception occurs while writing the page.
+	 */
+
+	@Benchmark
+	public File applyTemplate() throws IOException {
+		page.clearRenderedContent();
+		project.getTemplate().applyTemplate(output, false, page, null);
+		return output;
+	}
+
+	/**
+	 * Decodes the YAML header of a page.
+	 *
+	 * @return The decoded header.
+	 */
+
+	@Benchmark
+	public Map<String, Object> decodeFileHeader() {
+		return Utils.decodeFileHeader(header);
+	}
+
+	/**
+	 * Strips the HTML tags of a rendered page.
+	 *
+	 * @return The text content.
+	 */
+
+	@Benchmark
+	public String stripHTML() {
+		return Utils.stripHTML(content);
+	}
+
+	/**
+	 * Extracts the beginning of the text of a rendered page (the search snippet).
+	 *
+	 * @return The text snippet.
+	 */
+
+	@Benchmark
+	public String stripHTMLSnippet() {
+		return Utils.stripHTML(content, 140);
+	}
+
+}
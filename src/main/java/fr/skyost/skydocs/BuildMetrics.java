@@ -0,0 +1,374 @@
+package fr.skyost.skydocs;
+
+import com.eclipsesource.json.Json;
+import com.eclipsesource.json.JsonArray;
+import com.eclipsesource.json.JsonObject;
+import com.eclipsesource.json.WriterConfig;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects timings and counters during a build. All methods may be called from any thread.
+ * Sub-phase timings are summed across threads, so they may exceed the wall-clock duration of their task.
+ */
+
+public class BuildMetrics {
+
+	/**
+	 * A metrics instance that does not collect anything.
+	 */
+
+	public static final BuildMetrics DISABLED = new BuildMetrics(false);
+
+	/**
+	 * Whether metrics are collected.
+	 */
+
+	private final boolean enabled;
+
+	/**
+	 * The duration of each task (in nanoseconds), in execution order.
+	 */
+
+	private final Map<String, Long> tasks = new LinkedHashMap<>();
+
+	/**
+	 * The time spent in each phase (in nanoseconds).
+	 */
+
+	private final LongAdder[] phaseTimes = new LongAdder[Phase.values().length];
+
+	/**
+	 * The number of times each phase has been entered.
+	 */
+
+	private final LongAdder[] phaseCounts = new LongAdder[Phase.values().length];
+
+	/**
+	 * The conversion time of each converted page.
+	 */
+
+	private final ConcurrentLinkedQueue<PageTiming> pages = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * The number of pages kept from the previous build.
+	 */
+
+	private final LongAdder keptPages = new LongAdder();
+
+	/**
+	 * The number of page contents whose CommonMark output has been found in the Markdown cache.
+	 */
+
+	private final LongAdder markdownCacheHits = new LongAdder();
+
+	/**
+	 * The number of written files.
+	 */
+
+	private final LongAdder filesWritten = new LongAdder();
+
+	/**
+	 * The number of written bytes.
+	 */
+
+	private final LongAdder bytesWritten = new LongAdder();
+
+	/**
+	 * Creates a new BuildMetrics instance.
+	 */
+
+	public BuildMetrics() {
+		this(true);
+	}
+
+	/**
+	 * Creates a new BuildMetrics instance.
+	 *
+	 * @param enabled Whether metrics are collected.
+	 */
+
+	private BuildMetrics(final boolean enabled) {
+		this.enabled = enabled;
+		for(int i = 0; i != phaseTimes.length; i++) {
+			phaseTimes[i] = new LongAdder();
+			phaseCounts[i] = new LongAdder();
+		}
+	}
+
+	/**
+	 * Returns whether metrics are collected.
+	 *
+	 * @return Whether metrics are collected.
+	 */
+
+	public final boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Starts a timer.
+	 *
+	 * @return The timer start (to be passed to {@link #stop(Phase, long)}).
+	 */
+
+	public final long start() {
+		return enabled ? System.nanoTime() : 0L;
+	}
+
+	/**
+	 * Stops a timer and adds the elapsed time to the specified phase.
+	 *
+	 * @param phase The phase.
+	 * @param start The timer start (returned by {@link #start()}).
+	 *
+	 * @return The elapsed time (in nanoseconds).
+	 */
+
+	public final long stop(final Phase phase, final long start) {
+		if(!enabled) {
+			return 0L;
+		}
+		final long elapsed = System.nanoTime() - start;
+		phaseTimes[phase.ordinal()].add(elapsed);
+		phaseCounts[phase.ordinal()].increment();
+		return elapsed;
+	}
+
+	/**
+	 * Adds the duration of a task.
+	 *
+	 * @param task The task.
+	 */
+
+	public final void addTask(final DocsRunnable<?> task) {
+		if(!enabled || task.getDuration() < 0L) {
+			return;
+		}
+		synchronized(tasks) {
+			tasks.merge(task.getClass().getSimpleName(), task.getDuration(), Long::sum);
+		}
+	}
+
+	/**
+	 * Adds the conversion time of a page.
+	 *
+	 * @param page The page.
+	 * @param start The timer start (returned by {@link #start()}).
+	 */
+
+	public final void addPage(final DocsPage page, final long start) {
+		if(!enabled) {
+			return;
+		}
+		pages.add(new PageTiming(page.getPageRelativeURL(), System.nanoTime() - start));
+	}
+
+	/**
+	 * Adds a page that has been kept from the previous build.
+	 */
+
+	public final void addKeptPage() {
+		if(!enabled) {
+			return;
+		}
+		keptPages.increment();
+	}
+
+	/**
+	 * Adds a page content whose CommonMark output has been found in the Markdown cache.
+	 */
+
+	public final void addMarkdownCacheHit() {
+		if(!enabled) {
+			return;
+		}
+		markdownCacheHits.increment();
+	}
+
+	/**
+	 * Adds a written file.
+	 *
+	 * @param bytes The number of written bytes.
+	 */
+
+	public final void addWrittenFile(final long bytes) {
+		if(!enabled) {
+			return;
+		}
+		filesWritten.increment();
+		bytesWritten.add(bytes);
+	}
+
+	/**
+	 * Creates the JSON report.
+	 *
+	 * @param slowestPages The number of slowest pages to report.
+	 *
+	 * @return The JSON report.
+	 */
+
+	public final JsonObject toJSON(final int slowestPages) {
+		final JsonObject tasks = new JsonObject();
+		long total = 0L;
+		synchronized(this.tasks) {
+			for(final Map.Entry<String, Long> entry : this.tasks.entrySet()) {
+				tasks.add(entry.getKey(), entry.getValue());
+				total += entry.getValue();
+			}
+		}
+
+		final JsonObject phases = new JsonObject();
+		for(final Phase phase : Phase.values()) {
+			phases.add(phase.getName(), Json.object().add("nanos", phaseTimes[phase.ordinal()].sum()).add("count", phaseCounts[phase.ordinal()].sum()));
+		}
+
+		final List<PageTiming> pages = new ArrayList<>(this.pages);
+		Collections.sort(pages);
+		final JsonArray slowest = new JsonArray();
+		for(int i = 0; i != Math.min(slowestPages, pages.size()); i++) {
+			final PageTiming page = pages.get(i);
+			slowest.add(Json.object().add("page", page.page).add("nanos", page.nanos));
+		}
+
+		return Json.object()
+				.add("version", Constants.APP_VERSION)
+				.add("nanos", total)
+				.add("tasks", tasks)
+				.add("phases", phases)
+				.add("pages", Json.object().add("converted", pages.size()).add("kept", keptPages.sum()).add("markdownCacheHits", markdownCacheHits.sum()).add("slowest", slowest))
+				.add("output", Json.object().add("files", filesWritten.sum()).add("bytes", bytesWritten.sum()));
+	}
+
+	/**
+	 * Writes the JSON report.
+	 *
+	 * @param file The destination file.
+	 * @param slowestPages The number of slowest pages to report.
+	 *
+	 * @throws IOException If any exception occurs while writing the report.
+	 */
+
+	public final void save(final File file, final int slowestPages) throws IOException {
+		final File parent = file.getAbsoluteFile().getParentFile();
+		if(parent != null && !parent.exists()) {
+			parent.mkdirs();
+		}
+		Files.write(file.toPath(), toJSON(slowestPages).toString(WriterConfig.PRETTY_PRINT).getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Represents a build phase.
+	 */
+
+	public enum Phase {
+
+		/**
+		 * YAML parsing (project data, menus and page headers).
+		 */
+
+		YAML_PARSE,
+
+		/**
+		 * Jtwig rendering (page contents and theme template).
+		 * If the theme renders a page content first, the content rendering is included in the theme template rendering.
+		 */
+
+		JTWIG_RENDER,
+
+		/**
+		 * CommonMark parsing.
+		 */
+
+		MARKDOWN_PARSE,
+
+		/**
+		 * CommonMark rendering.
+		 */
+
+		MARKDOWN_RENDER,
+
+		/**
+		 * HTML compression.
+		 */
+
+		HTML_COMPRESSION,
+
+		/**
+		 * LESS compilation.
+		 */
+
+		LESS_COMPILATION,
+
+		/**
+		 * CSS and JS minification.
+		 */
+
+		MINIFICATION,
+
+		/**
+		 * Disk writes (converted pages, copied files and processed assets).
+		 */
+
+		DISK_WRITE;
+
+		/**
+		 * Returns the phase name (in the JSON report).
+		 *
+		 * @return The phase name.
+		 */
+
+		public final String getName() {
+			return name().toLowerCase();
+		}
+
+	}
+
+	/**
+	 * Represents the conversion time of a page.
+	 */
+
+	private static class PageTiming implements Comparable<PageTiming> {
+
+		/**
+		 * The page relative URL.
+		 */
+
+		private final String page;
+
+		/**
+		 * The conversion time (in nanoseconds).
+		 */
+
+		private final long nanos;
+
+		/**
+		 * Creates a new PageTiming instance.
+		 *
+		 * @param page The page relative URL.
+		 * @param nanos The conversion time (in nanoseconds).
+		 */
+
+		private PageTiming(final String page, final long nanos) {
+			this.page = page;
+			this.nanos = nanos;
+		}
+
+		@Override
+		public final int compareTo(final PageTiming timing) {
+			return Long.compare(timing.nanos, nanos);
+		}
+
+	}
+
+}
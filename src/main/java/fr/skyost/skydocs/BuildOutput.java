@@ -0,0 +1,282 @@
+package fr.skyost.skydocs;
+
+import fr.skyost.skydocs.utils.Utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Where a build writes its files. This implementation writes them to the disk, see {@link MemoryBuildOutput} for an in-memory one.
+ * All methods may be called from any thread.
+ */
+
+public class BuildOutput {
+
+	/**
+	 * The build output that writes files to the disk.
+	 */
+
+	public static final BuildOutput DISK = new BuildOutput();
+
+	/**
+	 * Creates a new BuildOutput instance.
+	 */
+
+	protected BuildOutput() {}
+
+	/**
+	 * Opens a file for writing (its parent directories are created if needed).
+	 *
+	 * @param file The file.
+	 *
+	 * @return The output stream (the file is written once the stream is closed).
+	 *
+	 * @throws IOException If any exception occurs while opening the file.
+	 */
+
+	public OutputStream newOutputStream(final File file) throws IOException {
+		createParentDirectory(file);
+		return Files.newOutputStream(file.toPath());
+	}
+
+	/**
+	 * Writes a file (its parent directories are created if needed).
+	 *
+	 * @param file The file.
+	 * @param bytes The file content.
+	 *
+	 * @throws IOException If any exception occurs while writing the file.
+	 */
+
+	public void write(final File file, final byte[] bytes) throws IOException {
+		createParentDirectory(file);
+		Files.write(file.toPath(), bytes);
+	}
+
+	/**
+	 * Copies a file to the output (the destination parent directories are created if needed).
+	 *
+	 * @param source The source file.
+	 * @param destination The destination.
+	 * @param replace Whether an existing destination should be replaced.
+	 *
+	 * @return The number of written bytes.
+	 *
+	 * @throws FileAlreadyExistsException If the destination exists and should not be replaced.
+	 * @throws IOException If any exception occurs while copying the file.
+	 */
+
+	public long copy(final File source, final File destination, final boolean replace) throws IOException {
+		createParentDirectory(destination);
+		if(replace) {
+			Files.copy(source.toPath(), destination.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		else {
+			Files.copy(source.toPath(), destination.toPath());
+		}
+		return destination.length();
+	}
+
+	/**
+	 * Creates a directory (and its parents).
+	 *
+	 * @param directory The directory.
+	 */
+
+	public void createDirectory(final File directory) {
+		directory.mkdirs();
+	}
+
+	/**
+	 * Checks whether a file has been written.
+	 *
+	 * @param file The file.
+	 *
+	 * @return Whether the file exists.
+	 */
+
+	public boolean exists(final File file) {
+		return file.exists();
+	}
+
+	/**
+	 * Checks whether a directory exists (or contains written files).
+	 *
+	 * @param directory The directory.
+	 *
+	 * @return Whether the directory exists.
+	 */
+
+	public boolean isDirectory(final File directory) {
+		return directory.isDirectory();
+	}
+
+	/**
+	 * Returns the length of a written file.
+	 *
+	 * @param file The file.
+	 *
+	 * @return The file length (0 if it does not exist).
+	 */
+
+	public long getLength(final File file) {
+		return file.length();
+	}
+
+	/**
+	 * Lists the files and directories contained in a directory.
+	 *
+	 * @param directory The directory.
+	 *
+	 * @return The files and directories, or null if the directory does not exist.
+	 */
+
+	public File[] listFiles(final File directory) {
+		return directory.listFiles();
+	}
+
+	/**
+	 * Deletes a written file.
+	 *
+	 * @param file The file.
+	 *
+	 * @return Whether the file has been deleted.
+	 */
+
+	public boolean delete(final File file) {
+		return file.isFile() && file.delete();
+	}
+
+	/**
+	 * Deletes all files contained in a directory.
+	 *
+	 * @param directory The directory.
+	 *
+	 * @return Whether the (empty) directory is ready to receive files.
+	 */
+
+	public boolean clear(final File directory) {
+		if(directory.isDirectory()) {
+			Utils.deleteDirectory(directory);
+		}
+		return directory.mkdirs();
+	}
+
+	/**
+	 * Returns a file that is stored in memory.
+	 *
+	 * @param file The file.
+	 *
+	 * @return The stored file, or null if the file is not stored in memory.
+	 */
+
+	public StoredFile getStoredFile(final File file) {
+		return null;
+	}
+
+	/**
+	 * Creates the parent directories of a file if needed.
+	 *
+	 * @param file The file.
+	 */
+
+	private static void createParentDirectory(final File file) {
+		final File parent = file.getParentFile();
+		if(parent != null && !parent.exists()) {
+			parent.mkdirs();
+		}
+	}
+
+	/**
+	 * Represents a file that is stored in memory.
+	 */
+
+	public static class StoredFile {
+
+		/**
+		 * The file content.
+		 */
+
+		private final byte[] content;
+
+		/**
+		 * The file MIME type.
+		 */
+
+		private final String mimeType;
+
+		/**
+		 * The SHA-256 hash of the content.
+		 */
+
+		private final String hash;
+
+		/**
+		 * When the file has been written (in milliseconds).
+		 */
+
+		private final long lastModified;
+
+		/**
+		 * Creates a new StoredFile instance.
+		 *
+		 * @param content The file content.
+		 * @param mimeType The file MIME type.
+		 * @param hash The SHA-256 hash of the content.
+		 * @param lastModified When the file has been written (in milliseconds).
+		 */
+
+		public StoredFile(final byte[] content, final String mimeType, final String hash, final long lastModified) {
+			this.content = content;
+			this.mimeType = mimeType;
+			this.hash = hash;
+			this.lastModified = lastModified;
+		}
+
+		/**
+		 * Returns the file content.
+		 *
+		 * @return The file content (must not be modified).
+		 */
+
+		public final byte[] getContent() {
+			return content;
+		}
+
+		/**
+		 * Returns the file MIME type.
+		 *
+		 * @return The file MIME type.
+		 */
+
+		public final String getMimeType() {
+			return mimeType;
+		}
+
+		/**
+		 * Returns the SHA-256 hash of the content.
+		 *
+		 * @return The SHA-256 hash of the content.
+		 */
+
+		public final String getHash() {
+			return hash;
+		}
+
+		/**
+		 * Returns when the file has been written.
+		 *
+		 * @return When the file has been written (in milliseconds).
+		 */
+
+		public final long getLastModified() {
+			return lastModified;
+		}
+
+	}
+
+}
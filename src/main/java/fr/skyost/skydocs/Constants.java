@@ -62,6 +62,18 @@ public class Constants {
 	
 	public static final String COMMAND_NEW_SYNTAX = COMMAND_NEW + " -directory [directory] - Creates a new documentation in the specified directory.";
 	
+	/**
+	 * The generate a synthetic project command.
+	 */
+	
+	public static final String COMMAND_GENERATE = "generate";
+	
+	/**
+	 * The generate command syntax.
+	 */
+	
+	public static final String COMMAND_GENERATE_SYNTAX = COMMAND_GENERATE + " -directory [directory] -seed [seed] -pages [pages] -languages [languages] -pagesPerDirectory [pages] -headerSize [keys] -paragraphs [paragraphs] -menuRootEntries [entries] -menuFanOut [children] -menuDepth [depth] -includeDepth [depth] -assets [assets] -assetSize [bytes] - Generates a synthetic project (used to load-test builds) in the specified directory.";
+	
 	/**
 	 * The build a project command.
 	 */
@@ -72,7 +84,7 @@ public class Constants {
 	 * The build command syntax.
 	 */
 	
-	public static final String COMMAND_BUILD_SYNTAX = COMMAND_BUILD + " -directory [directory] - Builds the documentation located in the specified directory.";
+	public static final String COMMAND_BUILD_SYNTAX = COMMAND_BUILD + " -directory [directory] -threads [threads] -incremental -metrics [file] - Builds the documentation located in the specified directory.";
 	
 	/**
 	 * The serve a project command.
@@ -84,7 +96,7 @@ public class Constants {
 	 * The serve command syntax.
 	 */
 	
-	public static final String COMMAND_SERVE_SYNTAX = COMMAND_SERVE + " -directory [directory] -port [port] -manualRebuild [true|false] - Builds the documentation located in the specified directory and serve it on localhost with the specified port.";
+	public static final String COMMAND_SERVE_SYNTAX = COMMAND_SERVE + " -directory [directory] -port [port] -manualRebuild [true|false] -rebuildDelay [milliseconds] - Builds the documentation located in the specified directory and serve it on localhost with the specified port.";
 	
 	/**
 	 * The update app command.
@@ -242,6 +254,18 @@ public class Constants {
 	
 	public static final String KEY_PROJECT_ENABLE_LESS = "enable_less";
 	
+	/**
+	 * Whether lunr indexes should be built at build time (instead of being built by the search page).
+	 */
+	
+	public static final String KEY_PROJECT_LUNR_PREBUILT_INDEX = "lunr_prebuilt_index";
+	
+	/**
+	 * Whether the search index of each language should be split by top-level directory.
+	 */
+	
+	public static final String KEY_PROJECT_LUNR_DIRECTORY_SHARDS = "lunr_directory_shards";
+	
 	/**
 	 * lunr search key.
 	 */
@@ -297,6 +321,54 @@ public class Constants {
 	
 	public static final String FILE_THEME_DIRECTORY = "theme";
 	
+	/**
+	 * Cache directory (contains the build manifest).
+	 */
+	
+	public static final String FILE_CACHE_DIRECTORY = ".skydocs";
+	
+	/**
+	 * Build manifest file (located in the cache directory).
+	 */
+	
+	public static final String FILE_BUILD_MANIFEST = "manifest.json";
+	
+	/**
+	 * Search index shard file prefix (followed by the shard name, written next to the search page).
+	 */
+	
+	public static final String FILE_SEARCH_INDEX_PREFIX = "search-";
+	
+	/**
+	 * Search index shard file suffix.
+	 */
+	
+	public static final String FILE_SEARCH_INDEX_SUFFIX = ".json";
+	
+	/**
+	 * Full-text index file prefix (followed by the shard name).
+	 */
+	
+	public static final String FILE_FULL_TEXT_INDEX_PREFIX = "fulltext-";
+	
+	/**
+	 * Full-text index file suffix.
+	 */
+	
+	public static final String FILE_FULL_TEXT_INDEX_SUFFIX = ".bin";
+	
+	/**
+	 * Prebuilt lunr index file prefix (followed by the shard name).
+	 */
+	
+	public static final String FILE_LUNR_INDEX_PREFIX = "lunr-";
+	
+	/**
+	 * Prebuilt lunr index file suffix.
+	 */
+	
+	public static final String FILE_LUNR_INDEX_SUFFIX = ".json";
+	
 	/**
 	 * Template page file.
 	 */
@@ -424,10 +496,16 @@ public class Constants {
 	public static final String VARIABLE_REDIRECTION_URL = "redirectionUrl";
 	
 	/**
-	 * The lunr data variable.
+	 * The search index shards variable (a JSON object that maps each language to its shards).
 	 */
 	
-	public static final String VARIABLE_LUNR_DATA = "lunrData";
+	public static final String VARIABLE_SEARCH_SHARDS = "searchShards";
+	
+	/**
+	 * The included files variable (a set that collects the files included while rendering a template).
+	 */
+	
+	public static final String VARIABLE_INCLUDED_FILES = "includedFiles";
 	
 	/**
 	 * ==============
@@ -531,6 +609,24 @@ public class Constants {
 	
 	public static final int DEFAULT_PORT = 4444;
 
+	/**
+	 * The default quiet window (in milliseconds) used to group file changes before rebuilding in serve mode.
+	 */
+
+	public static final long DEFAULT_REBUILD_DELAY = 300L;
+
+	/**
+	 * The default size (in characters) of the Markdown cache used in serve mode.
+	 */
+
+	public static final long DEFAULT_MARKDOWN_CACHE_SIZE = 16L * 1024L * 1024L;
+
+	/**
+	 * The number of slowest pages written in the build metrics.
+	 */
+
+	public static final int METRICS_SLOWEST_PAGES = 10;
+
 	/**
 	 * Auto rebuild message.
 	 */
@@ -0,0 +1,703 @@
+package fr.skyost.skydocs;
+
+import com.eclipsesource.json.Json;
+import com.eclipsesource.json.JsonArray;
+import com.eclipsesource.json.JsonObject;
+import com.eclipsesource.json.JsonValue;
+import com.google.common.hash.Hashing;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Represents a build manifest. It remembers the hash of every source file of a project and the outputs they produced,
+ * so that a build only has to convert what has changed since the previous one.
+ */
+
+public class DocsManifest {
+
+	/**
+	 * The manifest format version. Manifests having another version are ignored.
+	 */
+
+	private static final int VERSION = 4;
+
+	/**
+	 * The manifest file.
+	 */
+
+	private final File file;
+
+	/**
+	 * The project directory.
+	 */
+
+	private final File projectDirectory;
+
+	/**
+	 * The build directory.
+	 */
+
+	private final File buildDirectory;
+
+	/**
+	 * Where the build writes its files.
+	 */
+
+	private final BuildOutput buildOutput;
+
+	/**
+	 * Whether the previous manifest has been successfully loaded.
+	 */
+
+	private boolean loaded;
+
+	/**
+	 * Files states of the previous build (relative path : state).
+	 */
+
+	private final HashMap<String, FileState> previousFiles = new HashMap<>();
+
+	/**
+	 * Files states of the current build (relative path : state).
+	 */
+
+	private final HashMap<String, FileState> files = new HashMap<>();
+
+	/**
+	 * Sources of the previous build (relative path : source).
+	 */
+
+	private final HashMap<String, Source> previousSources = new HashMap<>();
+
+	/**
+	 * Sources of the current build (relative path : source).
+	 */
+
+	private final HashMap<String, Source> sources = new HashMap<>();
+
+	/**
+	 * Outputs of the current build (relative output path : relative source path).
+	 */
+
+	private final HashMap<String, String> outputs = new HashMap<>();
+
+	/**
+	 * Outputs of the previous build that are not attached to a single source.
+	 */
+
+	private final HashSet<String> previousGenerated = new HashSet<>();
+
+	/**
+	 * Outputs of the current build that are not attached to a single source.
+	 */
+
+	private final HashSet<String> generated = new HashSet<>();
+
+	/**
+	 * Signature of the build options of the previous build.
+	 */
+
+	private String previousOptions;
+
+	/**
+	 * Signature of the build options of the current build (generator version, production mode and project data).
+	 */
+
+	private String options;
+
+	/**
+	 * Signature of the files shared by all pages of the previous build.
+	 */
+
+	private String previousTemplate;
+
+	/**
+	 * Signature of the files shared by all pages of the current build (theme, menus and pages list).
+	 */
+
+	private String template;
+
+	/**
+	 * Creates a new DocsManifest instance.
+	 *
+	 * @param project The project.
+	 */
+
+	public DocsManifest(final DocsProject project) {
+		this.projectDirectory = project.getDirectory().getAbsoluteFile();
+		this.buildDirectory = project.getBuildDirectory().getAbsoluteFile();
+		this.buildOutput = project.getBuildOutput();
+		this.file = new File(new File(projectDirectory, Constants.FILE_CACHE_DIRECTORY), Constants.FILE_BUILD_MANIFEST);
+	}
+
+	/**
+	 * Returns the manifest file.
+	 *
+	 * @return The manifest file.
+	 */
+
+	public final File getFile() {
+		return file;
+	}
+
+	/**
+	 * Returns whether the previous manifest has been successfully loaded.
+	 *
+	 * @return Whether the previous manifest has been successfully loaded.
+	 */
+
+	public final boolean isLoaded() {
+		return loaded;
+	}
+
+	/**
+	 * Loads the previous manifest (if any). An invalid manifest is ignored and results in a full build.
+	 */
+
+	public final void load() {
+		loaded = false;
+		previousFiles.clear();
+		previousSources.clear();
+		previousGenerated.clear();
+		previousOptions = null;
+		previousTemplate = null;
+
+		if(!file.isFile()) {
+			return;
+		}
+
+		try(final Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+			final JsonObject object = Json.parse(reader).asObject();
+			if(object.getInt("version", -1) != VERSION) {
+				return;
+			}
+
+			previousOptions = object.getString("options", null);
+			previousTemplate = object.getString("template", null);
+
+			final JsonObject files = object.get("files").asObject();
+			for(final JsonObject.Member member : files) {
+				final JsonArray state = member.getValue().asArray();
+				previousFiles.put(member.getName(), new FileState(state.get(0).asString(), state.get(1).asLong(), state.get(2).asLong()));
+			}
+
+			final JsonObject sources = object.get("sources").asObject();
+			for(final JsonObject.Member member : sources) {
+				previousSources.put(member.getName(), Source.fromJSON(member.getValue().asObject()));
+			}
+
+			for(final JsonValue output : object.get("generated").asArray()) {
+				previousGenerated.add(output.asString());
+			}
+
+			loaded = true;
+		}
+		catch(final Exception ex) {
+			previousFiles.clear();
+			previousSources.clear();
+			previousGenerated.clear();
+		}
+	}
+
+	/**
+	 * Scans the project's sources and computes the signatures of the current build.
+	 *
+	 * @param project The project.
+	 * @param prod Whether the build runs in production mode.
+	 *
+	 * @throws IOException If any exception occurs while hashing a file.
+	 */
+
+	public final void scan(final DocsProject project, final boolean prod) throws IOException {
+		files.clear();
+		sources.clear();
+		outputs.clear();
+		generated.clear();
+
+		final List<String> shared = new ArrayList<>();
+
+		final File projectData = new File(projectDirectory, Constants.FILE_PROJECT_DATA);
+		options = Constants.APP_VERSION + "|" + prod + "|" + hash(projectData);
+
+		final File[] children = projectDirectory.listFiles();
+		if(children != null) {
+			for(final File child : children) {
+				final String name = child.getName().toLowerCase();
+				if(child.isFile() && name.startsWith(Constants.FILE_MENU_PREFIX) && name.endsWith(Constants.FILE_MENU_SUFFIX)) {
+					shared.add(getRelativePath(child) + "=" + hash(child));
+				}
+			}
+		}
+
+		final File themeDirectory = project.getThemeDirectory().getAbsoluteFile();
+		final File assetsDirectory = new File(themeDirectory, Constants.FILE_ASSETS_DIRECTORY);
+		for(final File themeFile : listFiles(themeDirectory)) {
+			final String hash = hash(themeFile);
+			if(!themeFile.toPath().startsWith(assetsDirectory.toPath())) {
+				shared.add(getRelativePath(themeFile) + "=" + hash);
+			}
+		}
+
+		for(final File contentFile : listFiles(project.getContentDirectory().getAbsoluteFile())) {
+			hash(contentFile);
+		}
+
+		final List<DocsPage> pages = new ArrayList<>(project.getPages());
+		Collections.sort(pages);
+		for(final DocsPage page : pages) {
+			shared.add(page.getPageRelativeURL() + "|" + page.getLanguage() + "|" + page.getPreviousPage() + "|" + page.getNextPage());
+		}
+
+		Collections.sort(shared);
+		template = Hashing.sha256().hashString(String.join("\n", shared), StandardCharsets.UTF_8).toString();
+	}
+
+	/**
+	 * Checks whether a source file has not changed since the previous build and whether its outputs still exist.
+	 *
+	 * @param source The source file.
+	 * @param isPage Whether the source file is a page (pages depend on the theme, the menus and the other pages).
+	 *
+	 * @return Whether the outputs of the source file can be kept as they are.
+	 *
+	 * @throws IOException If any exception occurs while hashing a dependency.
+	 */
+
+	public final boolean isUpToDate(final File source, final boolean isPage) throws IOException {
+		if(!loaded || !Objects.equals(previousOptions, options) || (isPage && !Objects.equals(previousTemplate, template))) {
+			return false;
+		}
+
+		final String path = getRelativePath(source);
+		final Source previous = previousSources.get(path);
+		final FileState previousState = previousFiles.get(path);
+		if(previous == null || previousState == null || previous.outputs.isEmpty() || !previousState.hash.equals(hash(source))) {
+			return false;
+		}
+
+		for(final Map.Entry<String, String> dependency : previous.dependencies.entrySet()) {
+			if(!dependency.getValue().equals(hash(new File(projectDirectory, dependency.getKey())))) {
+				return false;
+			}
+		}
+
+		for(final String output : previous.outputs) {
+			if(!buildOutput.exists(new File(buildDirectory, output))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Keeps the outputs that a source file has produced during the previous build.
+	 *
+	 * @param source The source file.
+	 */
+
+	public final void keep(final File source) {
+		final String path = getRelativePath(source);
+		final Source previous = previousSources.get(path);
+		if(previous != null) {
+			putSource(path, previous);
+		}
+	}
+
+	/**
+	 * Records the outputs produced by a source file.
+	 *
+	 * @param source The source file.
+	 * @param outputs The produced files.
+	 * @param dependencies The other files that have been read to produce the outputs.
+	 * @param searchEntry The search entry of the source file (may be null).
+	 *
+	 * @throws IOException If any exception occurs while hashing a dependency.
+	 */
+
+	public final void record(final File source, final Collection<File> outputs, final Collection<File> dependencies, final String searchEntry) throws IOException {
+		final Source result = new Source(searchEntry);
+		for(final File output : outputs) {
+			result.outputs.add(getBuildRelativePath(output));
+		}
+		for(final File dependency : dependencies) {
+			final String hash = hash(dependency);
+			if(hash != null) {
+				result.dependencies.put(getRelativePath(dependency), hash);
+			}
+		}
+		putSource(getRelativePath(source), result);
+	}
+
+	/**
+	 * Records an output that is not attached to a single source file (search page, redirection page, ...).
+	 *
+	 * @param output The output.
+	 */
+
+	public final void addGenerated(final File output) {
+		generated.add(getBuildRelativePath(output));
+	}
+
+	/**
+	 * Returns the search entry recorded for a source file during the previous build.
+	 *
+	 * @param source The source file.
+	 *
+	 * @return The search entry (may be null).
+	 */
+
+	public final String getSearchEntry(final File source) {
+		final Source previous = previousSources.get(getRelativePath(source));
+		return previous == null ? null : previous.searchEntry;
+	}
+
+	/**
+	 * Checks whether a source file has been recorded during the previous build.
+	 *
+	 * @param source The source file.
+	 *
+	 * @return Whether the source file has been recorded.
+	 */
+
+	public final boolean isRecorded(final File source) {
+		final Source previous = previousSources.get(getRelativePath(source));
+		return loaded && previous != null && !previous.outputs.isEmpty();
+	}
+
+	/**
+	 * Returns the source files that have read any of the specified files during the previous build.
+	 * The specified files themselves are included if they have been recorded.
+	 *
+	 * @param files The files.
+	 *
+	 * @return The affected source files.
+	 */
+
+	public final Set<File> getDependents(final Collection<File> files) {
+		final HashSet<String> paths = new HashSet<>();
+		for(final File file : files) {
+			paths.add(getRelativePath(file));
+		}
+
+		final HashSet<File> dependents = new HashSet<>();
+		for(final Map.Entry<String, Source> entry : previousSources.entrySet()) {
+			if(paths.contains(entry.getKey()) || !Collections.disjoint(paths, entry.getValue().dependencies.keySet())) {
+				dependents.add(new File(projectDirectory, entry.getKey()));
+			}
+		}
+		return dependents;
+	}
+
+	/**
+	 * Checks whether a file has already been produced by another source during the current build.
+	 *
+	 * @param output The file.
+	 *
+	 * @return Whether the file has already been produced.
+	 */
+
+	public final boolean hasOutput(final File output) {
+		final String path = getBuildRelativePath(output);
+		return outputs.containsKey(path) || generated.contains(path);
+	}
+
+	/**
+	 * Returns the outputs of the previous build that have not been produced by the current one.
+	 *
+	 * @return The orphaned outputs.
+	 */
+
+	public final List<File> getOrphans() {
+		final TreeSet<String> orphans = new TreeSet<>(previousGenerated);
+		for(final Source source : previousSources.values()) {
+			orphans.addAll(source.outputs);
+		}
+		orphans.removeAll(outputs.keySet());
+		orphans.removeAll(generated);
+
+		final List<File> result = new ArrayList<>();
+		for(final String orphan : orphans) {
+			result.add(new File(buildDirectory, orphan));
+		}
+		return result;
+	}
+
+	/**
+	 * Deletes the orphaned outputs and the directories they leave empty.
+	 *
+	 * @return The number of deleted files.
+	 */
+
+	public final int deleteOrphans() {
+		int deleted = 0;
+		for(final File orphan : getOrphans()) {
+			if(!buildOutput.delete(orphan)) {
+				continue;
+			}
+			deleted++;
+
+			File parent = orphan.getParentFile();
+			while(parent != null && !parent.equals(buildDirectory)) {
+				final String[] children = parent.list();
+				if(children == null || children.length > 0 || !parent.delete()) {
+					break;
+				}
+				parent = parent.getParentFile();
+			}
+		}
+		return deleted;
+	}
+
+	/**
+	 * Saves the current build state so that the next build can use it.
+	 *
+	 * @throws IOException If any exception occurs while writing the manifest.
+	 */
+
+	public final void save() throws IOException {
+		final JsonObject files = new JsonObject();
+		for(final Map.Entry<String, FileState> entry : new TreeMap<>(this.files).entrySet()) {
+			final FileState state = entry.getValue();
+			files.add(entry.getKey(), new JsonArray().add(state.hash).add(state.size).add(state.lastModified));
+		}
+
+		final JsonObject sources = new JsonObject();
+		for(final Map.Entry<String, Source> entry : new TreeMap<>(this.sources).entrySet()) {
+			sources.add(entry.getKey(), entry.getValue().toJSON());
+		}
+
+		final JsonArray generated = new JsonArray();
+		for(final String output : new TreeSet<>(this.generated)) {
+			generated.add(output);
+		}
+
+		final JsonObject object = new JsonObject()
+				.add("version", VERSION)
+				.add("options", options)
+				.add("template", template)
+				.add("files", files)
+				.add("sources", sources)
+				.add("generated", generated);
+
+		file.getParentFile().mkdirs();
+		try(final Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+			object.writeTo(writer);
+		}
+	}
+
+	/**
+	 * Puts a source of the current build.
+	 *
+	 * @param path The source relative path.
+	 * @param source The source.
+	 */
+
+	private void putSource(final String path, final Source source) {
+		sources.put(path, source);
+		for(final String output : source.outputs) {
+			outputs.put(output, path);
+		}
+	}
+
+	/**
+	 * Hashes a file. The previous hash is reused if the file size and its last modification time have not changed.
+	 *
+	 * @param file The file.
+	 *
+	 * @return The hash, or null if the file does not exist.
+	 *
+	 * @throws IOException If any exception occurs while reading the file.
+	 */
+
+	private String hash(final File file) throws IOException {
+		if(!file.isFile()) {
+			return null;
+		}
+
+		final String path = getRelativePath(file);
+		FileState state = files.get(path);
+		if(state != null) {
+			return state.hash;
+		}
+
+		final long size = file.length();
+		final long lastModified = file.lastModified();
+		state = previousFiles.get(path);
+		if(state == null || state.size != size || state.lastModified != lastModified) {
+			state = new FileState(com.google.common.io.Files.asByteSource(file).hash(Hashing.sha256()).toString(), size, lastModified);
+		}
+		files.put(path, state);
+		return state.hash;
+	}
+
+	/**
+	 * Returns the path of a file relative to the project directory.
+	 *
+	 * @param file The file.
+	 *
+	 * @return The relative path.
+	 */
+
+	private String getRelativePath(final File file) {
+		return projectDirectory.toPath().relativize(file.getAbsoluteFile().toPath()).toString().replace(File.separatorChar, '/');
+	}
+
+	/**
+	 * Returns the path of a file relative to the build directory.
+	 *
+	 * @param file The file.
+	 *
+	 * @return The relative path.
+	 */
+
+	private String getBuildRelativePath(final File file) {
+		return buildDirectory.toPath().relativize(file.getAbsoluteFile().toPath()).toString().replace(File.separatorChar, '/');
+	}
+
+	/**
+	 * Lists all files contained in a directory (recursively).
+	 *
+	 * @param directory The directory.
+	 *
+	 * @return All files.
+	 */
+
+	private static List<File> listFiles(final File directory) {
+		final List<File> result = new ArrayList<>();
+		final File[] children = directory.listFiles();
+		if(children == null) {
+			return result;
+		}
+
+		for(final File child : children) {
+			if(child.isDirectory()) {
+				result.addAll(listFiles(child));
+				continue;
+			}
+			result.add(child);
+		}
+		return result;
+	}
+
+	/**
+	 * Represents the state of a file.
+	 */
+
+	private static class FileState {
+
+		/**
+		 * The content hash.
+		 */
+
+		private final String hash;
+
+		/**
+		 * The file size.
+		 */
+
+		private final long size;
+
+		/**
+		 * The last modification time.
+		 */
+
+		private final long lastModified;
+
+		/**
+		 * Creates a new FileState instance.
+		 *
+		 * @param hash The content hash.
+		 * @param size The file size.
+		 * @param lastModified The last modification time.
+		 */
+
+		private FileState(final String hash, final long size, final long lastModified) {
+			this.hash = hash;
+			this.size = size;
+			this.lastModified = lastModified;
+		}
+
+	}
+
+	/**
+	 * Represents what a source file has produced.
+	 */
+
+	private static class Source {
+
+		/**
+		 * The produced files (relative to the build directory).
+		 */
+
+		private final List<String> outputs = new ArrayList<>();
+
+		/**
+		 * The other files read to produce the outputs (relative path : hash).
+		 */
+
+		private final TreeMap<String, String> dependencies = new TreeMap<>();
+
+		/**
+		 * The search entry.
+		 */
+
+		private final String searchEntry;
+
+		/**
+		 * Creates a new Source instance.
+		 *
+		 * @param searchEntry The search entry.
+		 */
+
+		private Source(final String searchEntry) {
+			this.searchEntry = searchEntry;
+		}
+
+		/**
+		 * Converts this source to a JSON object.
+		 *
+		 * @return The JSON object.
+		 */
+
+		private JsonObject toJSON() {
+			final JsonArray outputs = new JsonArray();
+			for(final String output : this.outputs) {
+				outputs.add(output);
+			}
+
+			final JsonObject dependencies = new JsonObject();
+			for(final Map.Entry<String, String> dependency : this.dependencies.entrySet()) {
+				dependencies.add(dependency.getKey(), dependency.getValue());
+			}
+
+			final JsonObject object = new JsonObject().add("outputs", outputs).add("dependencies", dependencies);
+			if(searchEntry != null) {
+				object.add("search", searchEntry);
+			}
+			return object;
+		}
+
+		/**
+		 * Creates a source from a JSON object.
+		 *
+		 * @param object The JSON object.
+		 *
+		 * @return The source.
+		 */
+
+		private static Source fromJSON(final JsonObject object) {
+			final Source source = new Source(object.getString("search", null));
+			for(final JsonValue output : object.get("outputs").asArray()) {
+				source.outputs.add(output.asString());
+			}
+			for(final JsonObject.Member dependency : object.get("dependencies").asObject()) {
+				source.dependencies.put(dependency.getName(), dependency.getValue().asString());
+			}
+			return source;
+		}
+
+	}
+
+}
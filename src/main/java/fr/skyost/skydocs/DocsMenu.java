@@ -3,13 +3,14 @@ package fr.skyost.skydocs;
 import fr.skyost.skydocs.exception.InvalidMenuDataException;
 import fr.skyost.skydocs.exception.InvalidMenuEntryException;
 import fr.skyost.skydocs.utils.IncludeFileFunction;
+import fr.skyost.skydocs.utils.SeparatedFile;
 import fr.skyost.skydocs.utils.Utils;
 import fr.skyost.skydocs.utils.Utils.AutoLineBreakStringBuilder;
+import fr.skyost.skydocs.utils.YAMLDecoder;
 import org.jtwig.JtwigModel;
 import org.jtwig.JtwigTemplate;
 import org.jtwig.environment.EnvironmentConfiguration;
 import org.jtwig.environment.EnvironmentConfigurationBuilder;
-import org.yaml.snakeyaml.Yaml;
 
 import java.io.File;
 import java.util.*;
@@ -32,6 +33,12 @@ public class DocsMenu {
 	
 	private final List<DocsMenuEntry> entries = new ArrayList<>();
 	
+	/**
+	 * The compiled menu (shared by all pages of a build).
+	 */
+	
+	private volatile CompiledMenu compiledMenu;
+	
 	/**
 	 * Creates a new DocsMenu instance.
 	 * 
@@ -99,6 +106,7 @@ public class DocsMenu {
 	
 	public final void addEntries(final DocsMenuEntry... entries) {
 		this.entries.addAll(Arrays.asList(entries));
+		invalidate();
 	}
 	
 	/**
@@ -123,6 +131,7 @@ public class DocsMenu {
 	
 	public final void removeEntry(final DocsMenuEntry entry) {
 		entries.remove(entry);
+		invalidate();
 	}
 	
 	/**
@@ -131,6 +140,16 @@ public class DocsMenu {
 	
 	public final void clearEntries() {
 		entries.clear();
+		invalidate();
+	}
+	
+	/**
+	 * Invalidates the compiled menu. It will be compiled again the next time it is converted to HTML.
+	 * This must be called at the start of each build and when entries are modified with <strong>getEntries()</strong>.
+	 */
+	
+	public final void invalidate() {
+		compiledMenu = null;
 	}
 	
 	/**
@@ -140,7 +159,15 @@ public class DocsMenu {
 	 */
 	
 	public final String toHTML() {
-		return toHTML(null);
+		final AutoLineBreakStringBuilder builder = new AutoLineBreakStringBuilder("<ul>");
+		// Pages may be converted concurrently, so we sort a copy instead of the entries themselves.
+		final List<DocsMenuEntry> entries = new ArrayList<>(getEntries());
+		orderMenuEntries(entries);
+		for(final DocsMenuEntry entry : entries) {
+			builder.append(entry.toHTML());
+		}
+		builder.append(Utils.LINE_SEPARATOR + "</ul>");
+		return builder.toString();
 	}
 	
 	/**
@@ -152,25 +179,51 @@ public class DocsMenu {
 	 */
 	
 	protected final String toHTML(final DocsPage page) {
-		final AutoLineBreakStringBuilder builder = new AutoLineBreakStringBuilder("<ul>");
-		orderMenuEntries(getEntries());
 		if(page == null) {
-			for(final DocsMenuEntry entry : getEntries()) {
-				builder.append(entry.toHTML());
-			}
+			return toHTML();
 		}
-		else {
-			final JtwigModel model = page.getProject().getTemplate().createModel().with(Constants.VARIABLE_PAGE, page);
-			
-			final IncludeFileFunction includeFile = new IncludeFileFunction(page.getProject().getContentDirectory(), model, DocsTemplate.RANGE_FUNCTION);
-			final EnvironmentConfiguration configuration = EnvironmentConfigurationBuilder.configuration().functions().add(includeFile).add(DocsTemplate.RANGE_FUNCTION).and().build();
-			
-			for(final DocsMenuEntry entry : getEntries()) {
-				builder.append(JtwigTemplate.inlineTemplate(entry.toHTML(), configuration).render(model));
+		
+		final CompiledMenu compiledMenu = compile(page.getProject());
+		if(compiledMenu.template == null) {
+			return compiledMenu.html;
+		}
+		
+		// The include function is shared by all pages, so each render collects its own included files.
+		final Set<File> includedFiles = new HashSet<>();
+		final JtwigModel model = page.getProject().getTemplate().createModel().with(Constants.VARIABLE_PAGE, page).with(Constants.VARIABLE_INCLUDED_FILES, includedFiles);
+		final String html = compiledMenu.template.render(model);
+		page.getDependencies().addAll(includedFiles);
+		return html;
+	}
+	
+	/**
+	 * Compiles this menu if needed. Menus that do not contain any Jtwig tag are not compiled at all.
+	 * 
+	 * @param project The project.
+	 * 
+	 * @return The compiled menu.
+	 */
+	
+	private CompiledMenu compile(final DocsProject project) {
+		CompiledMenu compiledMenu = this.compiledMenu;
+		if(compiledMenu != null) {
+			return compiledMenu;
+		}
+		
+		synchronized(this) {
+			if(this.compiledMenu == null) {
+				final String html = toHTML();
+				if(html.contains("{{") || html.contains("{%") || html.contains("{#")) {
+					final IncludeFileFunction includeFile = new IncludeFileFunction(project.getContentDirectory(), null, DocsTemplate.RANGE_FUNCTION);
+					final EnvironmentConfiguration configuration = EnvironmentConfigurationBuilder.configuration().functions().add(includeFile).add(DocsTemplate.RANGE_FUNCTION).and().build();
+					this.compiledMenu = new CompiledMenu(html, JtwigTemplate.inlineTemplate(html, configuration));
+				}
+				else {
+					this.compiledMenu = new CompiledMenu(html, null);
+				}
 			}
+			return this.compiledMenu;
 		}
-		builder.append(Utils.LINE_SEPARATOR + "</ul>");
-		return builder.toString();
 	}
 	
 	/**
@@ -189,19 +242,21 @@ public class DocsMenu {
 		try {
 			final DocsMenu menu = new DocsMenu(project.getDefaultLanguage());
 			
-			final String[] parts = Utils.separateFileHeader(menuData);
+			final SeparatedFile parts = SeparatedFile.read(menuData);
 			String language = project.getDefaultLanguage();
 			
-			if(parts[0] != null) {
-				final Map<String, Object> headers = Utils.decodeFileHeader(parts[0]);
+			final BuildMetrics metrics = project.getMetrics();
+			final long start = metrics.start();
+			if(parts.hasHeader()) {
+				final Map<String, Object> headers = Utils.decodeFileHeader(parts.getHeaderString());
 				if(headers != null && headers.containsKey(Constants.KEY_HEADER_LANGUAGE)) {
 					language = headers.get(Constants.KEY_HEADER_LANGUAGE).toString();
 				}
 			}
 			menu.setLanguage(language);
 			
-			final Yaml yaml = new Yaml();
-			final List<?> children = yaml.load(parts[1]);
+			final List<?> children = YAMLDecoder.load(parts.getContentString());
+			metrics.stop(BuildMetrics.Phase.YAML_PARSE, start);
 			for(final Object child : children) {
 				if(!(child instanceof HashMap)) {
 					throw new InvalidMenuDataException("Invalid menu item (" + child.toString() + ").");
@@ -227,6 +282,38 @@ public class DocsMenu {
 		Collections.sort(entries);
 	}
 	
+	/**
+	 * Represents a menu compiled once and rendered for each page.
+	 */
+	
+	private static class CompiledMenu {
+		
+		/**
+		 * The HTML content (before rendering).
+		 */
+		
+		private final String html;
+		
+		/**
+		 * The compiled template (null if the menu does not need to be rendered).
+		 */
+		
+		private final JtwigTemplate template;
+		
+		/**
+		 * Creates a new CompiledMenu instance.
+		 * 
+		 * @param html The HTML content (before rendering).
+		 * @param template The compiled template (null if the menu does not need to be rendered).
+		 */
+		
+		private CompiledMenu(final String html, final JtwigTemplate template) {
+			this.html = html;
+			this.template = template;
+		}
+		
+	}
+	
 	/**
 	 * Represents a menu entry.
 	 */
@@ -435,6 +522,7 @@ public class DocsMenu {
 			builder.append(">" + getTitle() + "</a>");
 			if(children.size() > 0) {
 				builder.append("<ul>");
+				final List<DocsMenuEntry> children = new ArrayList<>(this.children);
 				orderMenuEntries(children);
 				for(final DocsMenuEntry child : children) {
 					builder.append(child.toHTML());
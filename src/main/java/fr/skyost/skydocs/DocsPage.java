@@ -1,7 +1,10 @@
 package fr.skyost.skydocs;
 
+import com.google.common.hash.HashCode;
 import com.google.common.io.Files;
+import fr.skyost.skydocs.search.SearchText;
 import fr.skyost.skydocs.utils.IncludeFileFunction;
+import fr.skyost.skydocs.utils.SeparatedFile;
 import fr.skyost.skydocs.utils.Utils;
 import org.apache.commons.lang3.LocaleUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -10,6 +13,7 @@ import org.commonmark.ext.autolink.AutolinkExtension;
 import org.commonmark.ext.gfm.strikethrough.StrikethroughExtension;
 import org.commonmark.ext.gfm.tables.TablesExtension;
 import org.commonmark.ext.heading.anchor.HeadingAnchorExtension;
+import org.commonmark.node.Node;
 import org.commonmark.parser.Parser;
 import org.commonmark.renderer.html.HtmlRenderer;
 import org.jtwig.JtwigModel;
@@ -18,6 +22,7 @@ import org.jtwig.environment.EnvironmentConfiguration;
 import org.jtwig.environment.EnvironmentConfigurationBuilder;
 
 import java.io.File;
+import java.io.IOException;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.*;
@@ -107,6 +112,24 @@ public class DocsPage implements Comparable<DocsPage> {
 	
 	private final HashMap<String, Object> additionalVariables = new HashMap<>();
 	
+	/**
+	 * Files that have been included while rendering this page.
+	 */
+	
+	private final Set<File> dependencies = Collections.synchronizedSet(new HashSet<>());
+	
+	/**
+	 * Cached source of this page (header and raw content).
+	 */
+	
+	private volatile Source source;
+	
+	/**
+	 * Cached rendered content of this page.
+	 */
+	
+	private volatile RenderedContent renderedContent;
+	
 	/**
 	 * Creates a new DocsPage instance.
 	 * 
@@ -115,7 +138,11 @@ public class DocsPage implements Comparable<DocsPage> {
 	 */
 	
 	public DocsPage(final DocsProject project, final File file) {
-		final Map<String, Object> header = Utils.decodeFileHeader(Utils.separateFileHeader(file)[0]);
+		this.source = Source.read(file);
+		final BuildMetrics metrics = project.getMetrics();
+		final long start = metrics.start();
+		final Map<String, Object> header = Utils.decodeFileHeader(source.header);
+		metrics.stop(BuildMetrics.Phase.YAML_PARSE, start);
 		
 		this.project = project;
 		this.title = header != null && header.containsKey(Constants.KEY_HEADER_TITLE) ? header.get(Constants.KEY_HEADER_TITLE).toString() : StringUtils.capitalize(Files.getNameWithoutExtension(file.getName()));
@@ -379,12 +406,103 @@ public class DocsPage implements Comparable<DocsPage> {
 	 */
 	
 	public final String getContent() {
+		final Source source = getSource();
+		RenderedContent renderedContent = this.renderedContent;
+		if(renderedContent == null || renderedContent.source != source) {
+			renderedContent = renderContent(source, project.hasLunrSearch());
+			this.renderedContent = renderedContent;
+		}
+		return renderedContent.content;
+	}
+	
+	/**
+	 * Gets the page file's searchable text. It is extracted from the CommonMark document when the content is rendered,
+	 * so the rendered HTML never has to be stripped.
+	 * 
+	 * @return The page file's searchable text.
+	 */
+	
+	public final SearchText getSearchText() {
+		final Source source = getSource();
+		RenderedContent renderedContent = this.renderedContent;
+		if(renderedContent == null || renderedContent.source != source || renderedContent.searchText == null) {
+			renderedContent = renderContent(source, true);
+			this.renderedContent = renderedContent;
+		}
+		return renderedContent.searchText;
+	}
+	
+	/**
+	 * Renders the page file's content (with Jtwig and CommonMark).
+	 * CommonMark is skipped if the Jtwig output is in the project Markdown cache.
+	 * 
+	 * @param source The page source.
+	 * @param extractText Whether the searchable text should be extracted.
+	 * 
+	 * @return The rendered content.
+	 */
+	
+	private RenderedContent renderContent(final Source source, final boolean extractText) {
 		final JtwigModel model = project.getTemplate().createModel(additionalVariables).with(Constants.VARIABLE_PAGE, this);
 		
 		final IncludeFileFunction includeFile = new IncludeFileFunction(project.getContentDirectory(), model, DocsTemplate.RANGE_FUNCTION);
 		final EnvironmentConfiguration configuration = EnvironmentConfigurationBuilder.configuration().functions().add(includeFile).add(DocsTemplate.RANGE_FUNCTION).and().build();
 		
-		return CM_RENDERER.render(CM_PARSER.parse(JtwigTemplate.inlineTemplate(getRawContent(), configuration).render(model)));
+		final BuildMetrics metrics = project.getMetrics();
+		long start = metrics.start();
+		final String rendered = JtwigTemplate.inlineTemplate(source.content, configuration).render(model);
+		metrics.stop(BuildMetrics.Phase.JTWIG_RENDER, start);
+		
+		dependencies.addAll(includeFile.getIncludedFiles());
+		
+		final MarkdownCache cache = project.getMarkdownCache();
+		final HashCode key = cache == null ? null : MarkdownCache.key(rendered);
+		MarkdownCache.Entry entry = key == null ? null : cache.get(key);
+		if(entry != null && (!extractText || entry.getSearchText() != null)) {
+			metrics.addMarkdownCacheHit();
+			return new RenderedContent(source, entry.getContent(), entry.getSearchText());
+		}
+		
+		start = metrics.start();
+		final Node document = CM_PARSER.parse(rendered);
+		metrics.stop(BuildMetrics.Phase.MARKDOWN_PARSE, start);
+		
+		start = metrics.start();
+		final String content = CM_RENDERER.render(document);
+		metrics.stop(BuildMetrics.Phase.MARKDOWN_RENDER, start);
+		
+		entry = new MarkdownCache.Entry(content, extractText ? SearchText.extract(document) : null);
+		if(cache != null) {
+			cache.put(key, entry);
+		}
+		return new RenderedContent(source, entry.getContent(), entry.getSearchText());
+	}
+	
+	/**
+	 * Gets the files that have been included while rendering this page (page content and menu).
+	 * 
+	 * @return The included files.
+	 */
+	
+	public final Set<File> getDependencies() {
+		return dependencies;
+	}
+	
+	/**
+	 * Clears the files that have been included while rendering this page.
+	 */
+	
+	public final void clearDependencies() {
+		dependencies.clear();
+	}
+	
+	/**
+	 * Clears the cached rendered content, so that it is rendered again the next time it is needed.
+	 * This should be called once per build (the source itself is reloaded only if the file has changed).
+	 */
+	
+	public final void clearRenderedContent() {
+		renderedContent = null;
 	}
 	
 	/**
@@ -394,7 +512,23 @@ public class DocsPage implements Comparable<DocsPage> {
 	 */
 	
 	public final String getRawContent() {
-		return Utils.separateFileHeader(getFile())[1];
+		return getSource().content;
+	}
+	
+	/**
+	 * Gets the cached source of this page, reading the file again if its last modification time or size have changed.
+	 * 
+	 * @return The page source.
+	 */
+	
+	private Source getSource() {
+		final File file = getFile();
+		Source source = this.source;
+		if(source == null || source.lastModified != file.lastModified() || source.length != file.length()) {
+			source = Source.read(file);
+			this.source = source;
+		}
+		return source;
 	}
 	
 	/**
@@ -495,4 +629,113 @@ public class DocsPage implements Comparable<DocsPage> {
 		return menu.toHTML(this);
 	}
 	
+	/**
+	 * Represents the content of a page file, read at once.
+	 */
+	
+	private static class Source {
+		
+		/**
+		 * The file last modification time (when it has been read).
+		 */
+		
+		private final long lastModified;
+		
+		/**
+		 * The file size (when it has been read).
+		 */
+		
+		private final long length;
+		
+		/**
+		 * The file header (null if there is no header).
+		 */
+		
+		private final String header;
+		
+		/**
+		 * The file content (without the header).
+		 */
+		
+		private final String content;
+		
+		/**
+		 * Creates a new Source instance.
+		 * 
+		 * @param lastModified The file last modification time.
+		 * @param length The file size.
+		 * @param header The file header.
+		 * @param content The file content.
+		 */
+		
+		private Source(final long lastModified, final long length, final String header, final String content) {
+			this.lastModified = lastModified;
+			this.length = length;
+			this.header = header;
+			this.content = content;
+		}
+		
+		/**
+		 * Reads a page file.
+		 * 
+		 * @param file The file.
+		 * 
+		 * @return The page source.
+		 */
+		
+		private static Source read(final File file) {
+			final long lastModified = file.lastModified();
+			final long length = file.length();
+			try {
+				final SeparatedFile separatedFile = SeparatedFile.read(file);
+				return new Source(lastModified, length, separatedFile.getHeaderString(), separatedFile.getContentString());
+			}
+			catch(final IOException ex) {
+				ex.printStackTrace();
+			}
+			return new Source(lastModified, length, null, null);
+		}
+		
+	}
+	
+	/**
+	 * Represents the rendered content of a page.
+	 */
+	
+	private static class RenderedContent {
+		
+		/**
+		 * The source that has been rendered.
+		 */
+		
+		private final Source source;
+		
+		/**
+		 * The rendered content.
+		 */
+		
+		private final String content;
+		
+		/**
+		 * The searchable text (null if it has not been extracted).
+		 */
+		
+		private final SearchText searchText;
+		
+		/**
+		 * Creates a new RenderedContent instance.
+		 * 
+		 * @param source The source that has been rendered.
+		 * @param content The rendered content.
+		 * @param searchText The searchable text (null if it has not been extracted).
+		 */
+		
+		private RenderedContent(final Source source, final String content, final SearchText searchText) {
+			this.source = source;
+			this.content = content;
+			this.searchText = searchText;
+		}
+		
+	}
+	
 }
\ No newline at end of file
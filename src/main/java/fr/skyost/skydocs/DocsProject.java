@@ -7,12 +7,19 @@ import fr.skyost.skydocs.exception.InvalidTemplateException;
 import fr.skyost.skydocs.exception.LoadException;
 import fr.skyost.skydocs.utils.Utils;
 import fr.skyost.skydocs.utils.Utils.Pair;
-import org.yaml.snakeyaml.Yaml;
+import fr.skyost.skydocs.utils.YAMLDecoder;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * Represents a project.
@@ -44,6 +51,24 @@ public class DocsProject {
 	
 	private DocsTemplate template;
 	
+	/**
+	 * The metrics of the current build (never null).
+	 */
+	
+	private BuildMetrics metrics = BuildMetrics.DISABLED;
+	
+	/**
+	 * The cache of the CommonMark output of page contents (null if there is none).
+	 */
+	
+	private MarkdownCache markdownCache;
+	
+	/**
+	 * Where the build writes its files (never null).
+	 */
+	
+	private BuildOutput buildOutput = BuildOutput.DISK;
+	
 	/**
 	 * Other variables of this project.
 	 */
@@ -233,6 +258,46 @@ public class DocsProject {
 		projectVariables.put(Constants.KEY_PROJECT_ENABLE_LUNR, enable);
 	}
 	
+	/**
+	 * Gets if lunr indexes should be built at build time for this project.
+	 * 
+	 * @return If lunr indexes should be built at build time for this project.
+	 */
+	
+	public final boolean hasLunrPrebuiltIndex() {
+		return projectVariables.containsKey(Constants.KEY_PROJECT_LUNR_PREBUILT_INDEX) && Boolean.TRUE.equals(Utils.parseBoolean(projectVariables.get(Constants.KEY_PROJECT_LUNR_PREBUILT_INDEX).toString()));
+	}
+	
+	/**
+	 * Sets if lunr indexes should be built at build time for this project.
+	 * 
+	 * @param enable If lunr indexes should be built at build time for this project.
+	 */
+	
+	public final void setLunrPrebuiltIndex(final boolean enable) {
+		projectVariables.put(Constants.KEY_PROJECT_LUNR_PREBUILT_INDEX, enable);
+	}
+	
+	/**
+	 * Gets if the search index of each language should be split by top-level directory for this project.
+	 * 
+	 * @return If the search index of each language should be split by top-level directory for this project.
+	 */
+	
+	public final boolean hasLunrDirectoryShards() {
+		return projectVariables.containsKey(Constants.KEY_PROJECT_LUNR_DIRECTORY_SHARDS) && Boolean.TRUE.equals(Utils.parseBoolean(projectVariables.get(Constants.KEY_PROJECT_LUNR_DIRECTORY_SHARDS).toString()));
+	}
+	
+	/**
+	 * Sets if the search index of each language should be split by top-level directory for this project.
+	 * 
+	 * @param enable If the search index of each language should be split by top-level directory for this project.
+	 */
+	
+	public final void setLunrDirectoryShards(final boolean enable) {
+		projectVariables.put(Constants.KEY_PROJECT_LUNR_DIRECTORY_SHARDS, enable);
+	}
+	
 	/**
 	 * Gets if minification in production mode should be enabled for this project.
 	 * 
@@ -451,6 +516,66 @@ public class DocsProject {
 		this.template = template;
 	}
 	
+	/**
+	 * Gets the metrics of the current build.
+	 * 
+	 * @return The metrics of the current build ({@link BuildMetrics#DISABLED} if metrics are not collected).
+	 */
+	
+	public final BuildMetrics getMetrics() {
+		return metrics;
+	}
+	
+	/**
+	 * Sets the metrics of the current build.
+	 * 
+	 * @param metrics The metrics of the current build (null if metrics should not be collected).
+	 */
+	
+	public final void setMetrics(final BuildMetrics metrics) {
+		this.metrics = metrics == null ? BuildMetrics.DISABLED : metrics;
+	}
+	
+	/**
+	 * Gets the cache of the CommonMark output of page contents.
+	 * 
+	 * @return The cache of the CommonMark output of page contents (null if there is none).
+	 */
+	
+	public final MarkdownCache getMarkdownCache() {
+		return markdownCache;
+	}
+	
+	/**
+	 * Sets the cache of the CommonMark output of page contents.
+	 * 
+	 * @param markdownCache The cache of the CommonMark output of page contents (null if page contents should always be parsed).
+	 */
+	
+	public final void setMarkdownCache(final MarkdownCache markdownCache) {
+		this.markdownCache = markdownCache;
+	}
+	
+	/**
+	 * Gets where the build writes its files.
+	 * 
+	 * @return Where the build writes its files.
+	 */
+	
+	public final BuildOutput getBuildOutput() {
+		return buildOutput;
+	}
+	
+	/**
+	 * Sets where the build writes its files.
+	 * 
+	 * @param buildOutput Where the build writes its files (null to write them to the disk).
+	 */
+	
+	public final void setBuildOutput(final BuildOutput buildOutput) {
+		this.buildOutput = buildOutput == null ? BuildOutput.DISK : buildOutput;
+	}
+	
 	/**
 	 * Gets other project variables.
 	 */
@@ -494,6 +619,16 @@ public class DocsProject {
 		return new File(directoryPath, Constants.FILE_CONTENT_DIRECTORY);
 	}
 	
+	/**
+	 * Gets the cache directory of this project.
+	 * 
+	 * @return The cache directory.
+	 */
+	
+	public final File getCacheDirectory() {
+		return new File(directoryPath, Constants.FILE_CACHE_DIRECTORY);
+	}
+	
 	/**
 	 * Gets the theme directory of this project.
 	 * 
@@ -525,49 +660,96 @@ public class DocsProject {
 	 * Loads pages from the specified directory.
 	 * 
 	 * @param directory The directory.
+	 * @param threads The number of threads used to read pages.
 	 * 
 	 * @return A set of files that are not going to be copied because they already exist in the destination.
 	 * 
-	 * @throws LoadException If the specified file is not a directory.
+	 * @throws LoadException If the specified file is not a directory or if a page cannot be read.
 	 */
 	
-	private HashSet<String> loadPages(final File directory) throws LoadException {
-		return loadPages(directory, new HashSet<>());
+	private HashSet<String> loadPages(final File directory, final int threads) throws LoadException {
+		if(!directory.isDirectory()) {
+			throw new LoadException("The file \"" + directory + "\" is not a directory.");
+		}
+		
+		// Files are sorted so that duplicates are always detected the same way (the first path wins).
+		final List<File> files = listPageFiles(directory);
+		Collections.sort(files);
+		
+		final List<DocsPage> pages = new ArrayList<>(files.size());
+		final ExecutorService executor = threads > 1 ? Executors.newWorkStealingPool(threads) : null;
+		try {
+			if(executor == null) {
+				for(final File file : files) {
+					pages.add(new DocsPage(this, file));
+				}
+			}
+			else {
+				final List<Future<DocsPage>> results = new ArrayList<>(files.size());
+				for(final File file : files) {
+					results.add(executor.submit(() -> new DocsPage(this, file)));
+				}
+				for(final Future<DocsPage> result : results) {
+					pages.add(result.get());
+				}
+			}
+		}
+		catch(final InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new LoadException(ex);
+		}
+		catch(final ExecutionException ex) {
+			final Throwable cause = ex.getCause();
+			throw cause instanceof Exception ? new LoadException((Exception)cause) : new LoadException(ex);
+		}
+		finally {
+			if(executor != null) {
+				executor.shutdownNow();
+			}
+		}
+		
+		final HashSet<String> destinations = new HashSet<>();
+		final HashSet<String> alreadyExist = new HashSet<>();
+		for(final DocsPage page : pages) {
+			final String path = page.getBuildDestinationPath();
+			if(!destinations.add(path)) {
+				alreadyExist.add(path);
+				continue;
+			}
+			addPages(page);
+		}
+		return alreadyExist;
 	}
 	
 	/**
-	 * Loads pages from the specified directory.
+	 * Lists all MarkDown files located in the specified directory (and its sub-directories).
 	 * 
 	 * @param directory The directory.
-	 * @param destinations Already added pages destinations.
 	 * 
-	 * @return A set of files that are not going to be copied because they already exist in the destination.
+	 * @return The MarkDown files.
 	 * 
-	 * @throws LoadException If the specified file is not a directory.
+	 * @throws LoadException If an exception occurs while walking the directory.
 	 */
 	
-	private HashSet<String> loadPages(final File directory, final HashSet<String> destinations) throws LoadException {
-		if(!directory.isDirectory()) {
-			throw new LoadException("The file \"" + directory + "\" is not a directory.");
-		}
-		final HashSet<String> alreadyExist = new HashSet<>();
-		for(final File child : directory.listFiles()) {
-			if(child.isDirectory()) {
-				loadPages(child, destinations);
-				continue;
-			}
-			if(Files.getFileExtension(child.getName()).equalsIgnoreCase("md")) {
-				final DocsPage page = new DocsPage(this, child);
-				final String path = page.getBuildDestinationPath();
-				if(destinations.contains(path)) {
-					alreadyExist.add(path);
-					continue;
+	private static List<File> listPageFiles(final File directory) throws LoadException {
+		final List<File> files = new ArrayList<>();
+		try {
+			java.nio.file.Files.walkFileTree(directory.toPath(), EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
+				
+				@Override
+				public final FileVisitResult visitFile(final Path file, final BasicFileAttributes attributes) {
+					if(attributes.isRegularFile() && Files.getFileExtension(file.getFileName().toString()).equalsIgnoreCase("md")) {
+						files.add(file.toFile());
+					}
+					return FileVisitResult.CONTINUE;
 				}
-				destinations.add(path);
-				addPages(page);
-			}
+				
+			});
 		}
-		return alreadyExist;
+		catch(final IOException ex) {
+			throw new LoadException(ex);
+		}
+		return files;
 	}
 	
 	/**
@@ -581,6 +763,37 @@ public class DocsProject {
 	 */
 	
 	public static Pair<DocsProject, Set<String>> loadFromDirectory(final File directory) throws LoadException {
+		return loadFromDirectory(directory, 1);
+	}
+	
+	/**
+	 * Loads a complete project from a specified directory.
+	 * 
+	 * @param directory The directory.
+	 * @param threads The number of threads used to read pages.
+	 * 
+	 * @return 0 : The loaded project. 1 : A HashSet<String> of pages that can't be copied.
+	 * 
+	 * @throws LoadException If an exception occurs while loading the project.
+	 */
+	
+	public static Pair<DocsProject, Set<String>> loadFromDirectory(final File directory, final int threads) throws LoadException {
+		return loadFromDirectory(directory, threads, null);
+	}
+	
+	/**
+	 * Loads a complete project from a specified directory.
+	 * 
+	 * @param directory The directory.
+	 * @param threads The number of threads used to read pages.
+	 * @param metrics The metrics of the current build (null if metrics should not be collected).
+	 * 
+	 * @return 0 : The loaded project. 1 : A HashSet<String> of pages that can't be copied.
+	 * 
+	 * @throws LoadException If an exception occurs while loading the project.
+	 */
+	
+	public static Pair<DocsProject, Set<String>> loadFromDirectory(final File directory, final int threads, final BuildMetrics metrics) throws LoadException {
 		try {
 			if(!directory.exists()) {
 				throw new LoadException("The directory \"" + directory + "\" does not exist.");
@@ -600,8 +813,9 @@ public class DocsProject {
 				Utils.extract(Constants.RESOURCE_DEFAULT_THEME_PATH, Constants.RESOURCE_DEFAULT_THEME_DIRECTORY, themeDirectory);
 			}
 			
-			final DocsProject project = DocsProject.createFromFile(projectData);
+			final DocsProject project = DocsProject.createFromFile(projectData, metrics == null ? BuildMetrics.DISABLED : metrics);
 			project.setDirectory(directory);
+			project.setMetrics(metrics);
 			
 			for(final File child : directory.listFiles()) {
 				final String name = child.getName().toLowerCase();
@@ -610,7 +824,7 @@ public class DocsProject {
 				}
 			}
 			
-			final HashSet<String> alreadyExist = project.loadPages(project.getContentDirectory());
+			final HashSet<String> alreadyExist = project.loadPages(project.getContentDirectory(), threads);
 			if(project.isDefaultOrderAlphabetical()) {
 				final List<DocsPage> pages = new ArrayList<>(project.getPages());
 				Collections.sort(pages);
@@ -652,15 +866,20 @@ public class DocsProject {
 	 * Creates a DocsProject instance from a file.
 	 * 
 	 * @param file The page's content.
+	 * @param metrics The metrics of the current build.
 	 * 
 	 * @return The DocsProject instance.
 	 * @throws InvalidProjectDataException If the YAML file is invalid.
 	 */
 	
-	private static DocsProject createFromFile(final File file) throws InvalidProjectDataException {
+	private static DocsProject createFromFile(final File file, final BuildMetrics metrics) throws InvalidProjectDataException {
 		try {
-			final Yaml yaml = new Yaml();
-			final HashMap<String, Object> data = yaml.load(new FileInputStream(file));
+			final long start = metrics.start();
+			final HashMap<String, Object> data;
+			try(final InputStream input = new FileInputStream(file)) {
+				data = YAMLDecoder.load(input);
+			}
+			metrics.stop(BuildMetrics.Phase.YAML_PARSE, start);
 
 			return new DocsProject(data, file.getParentFile());
 		}
@@ -6,6 +6,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Represents a runnable.
@@ -37,7 +38,7 @@ public abstract class DocsRunnable<T> {
 	 * Whether this command is interrupted.
 	 */
 
-	private boolean isInterrupted = true;
+	private volatile boolean isInterrupted = true;
 
 	/**
 	 * All sub tasks (they need to be interrupted when this runnable is interrupted).
@@ -45,6 +46,12 @@ public abstract class DocsRunnable<T> {
 
 	private DocsRunnable[] subTasks;
 
+	/**
+	 * The duration of the last successful execution (in nanoseconds, -1 if this runnable has never been successfully executed).
+	 */
+
+	private volatile long duration = -1L;
+
 	/**
 	 * Creates a new runnable instance.
 	 */
@@ -285,6 +292,16 @@ public abstract class DocsRunnable<T> {
 		return isInterrupted;
 	}
 
+	/**
+	 * Returns the duration of the last successful execution.
+	 *
+	 * @return The duration (in nanoseconds, -1 if this runnable has never been successfully executed).
+	 */
+
+	public final long getDuration() {
+		return duration;
+	}
+
 	/**
 	 * Exits if interrupted.
 	 *
@@ -323,21 +340,25 @@ public abstract class DocsRunnable<T> {
 			}
 
 			isInterrupted = false;
-			final long first = System.currentTimeMillis();
+			final long first = System.nanoTime();
 
 			final T result = execute();
 			if(result == null) {
 				return null;
 			}
 
-			final long second = System.currentTimeMillis();
+			duration = System.nanoTime() - first;
 			if(showTime) {
-				outputLine("Done in " + (second - first) / 1000f + " seconds !");
+				outputLine("Done in " + TimeUnit.NANOSECONDS.toMillis(duration) / 1000f + " seconds !");
 			}
 			interrupt();
 
 			return result;
 		}
+		catch(final InterruptionException ex) {
+			blankLine();
+			outputLine(ex.getMessage());
+		}
 		catch(final Exception ex) {
 			for(final RunnableListener listener : listeners) {
 				listener.onRunnableError(this, ex);
@@ -1,15 +1,28 @@
 package fr.skyost.skydocs;
 
+import com.google.common.hash.Hashing;
 import fi.iki.elonen.NanoHTTPD;
 import fr.skyost.skydocs.utils.Utils;
 
-import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The SkyDocs internal server.
@@ -25,6 +38,18 @@ public class DocsServer extends NanoHTTPD {
 
 	private DocsProject project;
 
+	/**
+	 * The entity tag (content hash) of the files that have been served since the last build.
+	 */
+
+	private final Map<File, EntityTag> entityTags = new ConcurrentHashMap<>();
+
+	/**
+	 * Renders pages when they are requested (null if pages are built before being served).
+	 */
+
+	private volatile LazyRenderer renderer;
+
 	public DocsServer(final int port, final DocsProject project) {
 		super(port);
 
@@ -40,15 +65,22 @@ public class DocsServer extends NanoHTTPD {
 			}
 
 			final File buildDirectory = project.getBuildDirectory();
+			final BuildOutput output = project.getBuildOutput();
 			File file = new File(buildDirectory.getPath() + currentUri.replace("/", File.separator));
-			if(file.isDirectory()) {
+			final LazyRenderer renderer = this.renderer;
+			if(renderer != null && !renderer.render(file)) {
+				renderer.render(new File(file, "index.html"));
+			}
+			BuildOutput.StoredFile stored = output.getStoredFile(file);
+			if(stored == null && output.isDirectory(file)) {
 				if(!currentUri.endsWith("/")) {
 					final Response response = newFixedLengthResponse(Response.Status.REDIRECT, MIME_HTML, "Redirecting you...");
 					response.addHeader("Location", currentUri + "/");
 					return response;
 				}
 				file = new File(file, "index.html");
-				if(!file.exists()) {
+				stored = output.getStoredFile(file);
+				if(stored == null && !output.exists(file)) {
 					final Utils.AutoLineBreakStringBuilder builder = new Utils.AutoLineBreakStringBuilder("<!DOCTYPE html>");
 					builder.append("<html>");
 					builder.append("	<head>");
@@ -59,9 +91,9 @@ public class DocsServer extends NanoHTTPD {
 					builder.append("		<hr/>");
 					builder.append("		<ul>");
 					builder.append("			<li><a href=\"../\">..</a></li>");
-					for(final File child : file.getParentFile().listFiles()) {
+					for(final File child : output.listFiles(file.getParentFile())) {
 						String path = child.getPath().replace(buildDirectory.getPath(), "").replace(File.separator, "/");
-						if(child.isDirectory()) {
+						if(output.isDirectory(child)) {
 							path += "/";
 						}
 						builder.append("			<li><a href=\"" + path + "\">" + child.getName() + "</a></li>");
@@ -75,16 +107,38 @@ public class DocsServer extends NanoHTTPD {
 					return newFixedLengthResponse(Response.Status.UNAUTHORIZED, NanoHTTPD.MIME_HTML, builder.toString());
 				}
 			}
-			if(com.google.common.io.Files.getFileExtension(file.getName()).equalsIgnoreCase("html")) {
-				String content = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+			final long lastModified;
+			final String entityTag;
+			if(stored == null) {
+				final BasicFileAttributes attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+				lastModified = attributes.lastModifiedTime().toMillis();
+				entityTag = getEntityTag(file, attributes);
+			}
+			else {
+				lastModified = stored.getLastModified();
+				entityTag = "\"" + stored.getHash() + "\"";
+			}
+
+			Response response = null;
+			if(isNotModified(session.getHeaders(), entityTag, lastModified)) {
+				response = newFixedLengthResponse(Response.Status.NOT_MODIFIED, NanoHTTPD.getMimeTypeForFile(file.getPath()), "");
+			}
+			else if(com.google.common.io.Files.getFileExtension(file.getName()).equalsIgnoreCase("html")) {
+				String content = new String(stored == null ? Files.readAllBytes(file.toPath()) : stored.getContent(), StandardCharsets.UTF_8);
 				if(content.contains("<body>") && content.contains("</body>")) {
 					content = content.replace("</body>", Utils.AUTO_REFRESH_SCRIPT + "</body>");
-					return newFixedLengthResponse(Response.Status.OK, NanoHTTPD.MIME_HTML, content);
+					response = newFixedLengthResponse(Response.Status.OK, NanoHTTPD.MIME_HTML, content);
 				}
 			}
-			final FileInputStream fileInput = new FileInputStream(file);
-			final BufferedInputStream bufferedInput = new BufferedInputStream(fileInput);
-			return newFixedLengthResponse(Response.Status.OK, NanoHTTPD.getMimeTypeForFile(file.getPath()), bufferedInput, -1);
+			if(response == null) {
+				response = serveFile(session, file, stored, entityTag);
+			}
+
+			// Browsers have to revalidate files (which only costs a 304 if they have not changed) so that new builds are always shown.
+			response.addHeader("ETag", entityTag);
+			response.addHeader("Last-Modified", DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.ofEpochMilli(lastModified).atZone(ZoneOffset.UTC)));
+			response.addHeader("Cache-Control", "no-cache");
+			return response;
 		}
 		catch(final NoSuchFileException ex) {
 			return newFixedLengthResponse(Response.Status.NOT_FOUND, NanoHTTPD.MIME_HTML, "<html><head><title>404 Error</title></head><body>404 File not found." + Utils.AUTO_REFRESH_SCRIPT + "</body></html>");
@@ -97,12 +151,186 @@ public class DocsServer extends NanoHTTPD {
 		}
 	}
 
+	@Override
+	protected final boolean useGzipWhenAccepted(final Response response) {
+		// Compressing a partial response would make its Content-Range wrong.
+		return response.getStatus() != Response.Status.PARTIAL_CONTENT && super.useGzipWhenAccepted(response);
+	}
+
+	/**
+	 * Serves a file with its exact length (a single byte range is served if the request has a "Range" header).
+	 * Files that are stored on the disk are read through their channel, which is positioned at the beginning of the range instead of skipping bytes.
+	 *
+	 * @param session The HTTP session.
+	 * @param file The file.
+	 * @param stored The file content if it is stored in memory (null if it is stored on the disk).
+	 * @param entityTag The file entity tag (the range is ignored if the request has an "If-Range" header with another entity tag).
+	 *
+	 * @return The response.
+	 *
+	 * @throws IOException If any I/O exception occurs.
+	 */
+
+	private Response serveFile(final IHTTPSession session, final File file, final BuildOutput.StoredFile stored, final String entityTag) throws IOException {
+		final FileChannel channel = stored == null ? FileChannel.open(file.toPath(), StandardOpenOption.READ) : null;
+		final long length = stored == null ? channel.size() : stored.getContent().length;
+		final String mimeType = stored == null ? NanoHTTPD.getMimeTypeForFile(file.getPath()) : stored.getMimeType();
+
+		final String ifRange = session.getHeaders().get("if-range");
+		final long[] range = ifRange == null || ifRange.equals(entityTag) ? parseRange(session.getHeaders().get("range"), length) : null;
+		final Response response;
+		if(range == null) {
+			response = newFixedLengthResponse(Response.Status.OK, mimeType, newInputStream(channel, stored, 0L), length);
+		}
+		else if(range.length == 0) {
+			if(channel != null) {
+				channel.close();
+			}
+			response = newFixedLengthResponse(Response.Status.RANGE_NOT_SATISFIABLE, NanoHTTPD.MIME_PLAINTEXT, "Requested range not satisfiable.");
+			response.addHeader("Content-Range", "bytes */" + length);
+		}
+		else {
+			response = newFixedLengthResponse(Response.Status.PARTIAL_CONTENT, mimeType, newInputStream(channel, stored, range[0]), range[1] - range[0] + 1);
+			response.addHeader("Content-Range", "bytes " + range[0] + "-" + range[1] + "/" + length);
+		}
+		response.addHeader("Accept-Ranges", "bytes");
+		return response;
+	}
+
+	/**
+	 * Opens the content of a file at the specified position.
+	 *
+	 * @param channel The file channel (null if the file is stored in memory).
+	 * @param stored The file content if it is stored in memory (null if it is stored on the disk).
+	 * @param position The position.
+	 *
+	 * @return The input stream.
+	 *
+	 * @throws IOException If any I/O exception occurs.
+	 */
+
+	private static InputStream newInputStream(final FileChannel channel, final BuildOutput.StoredFile stored, final long position) throws IOException {
+		if(stored != null) {
+			final byte[] content = stored.getContent();
+			return new ByteArrayInputStream(content, (int)position, content.length - (int)position);
+		}
+		channel.position(position);
+		return Channels.newInputStream(channel);
+	}
+
+	/**
+	 * Parses a "Range" header. Only single byte ranges are supported, other ranges are ignored (the whole file is served).
+	 *
+	 * @param header The header value (may be null).
+	 * @param length The file length.
+	 *
+	 * @return The first and last bytes of the range, an empty array if the range cannot be satisfied, or null if the whole file should be served.
+	 */
+
+	private static long[] parseRange(final String header, final long length) {
+		if(header == null || !header.startsWith("bytes=") || header.indexOf(',') != -1) {
+			return null;
+		}
+		final String range = header.substring("bytes=".length()).trim();
+		final int separator = range.indexOf('-');
+		if(separator == -1) {
+			return null;
+		}
+
+		try {
+			final String first = range.substring(0, separator).trim();
+			final String last = range.substring(separator + 1).trim();
+			if(first.isEmpty()) {
+				final long suffix = Long.parseLong(last);
+				return suffix <= 0L || length == 0L ? new long[0] : new long[]{Math.max(0L, length - suffix), length - 1};
+			}
+			final long start = Long.parseLong(first);
+			final long end = last.isEmpty() ? Long.MAX_VALUE : Long.parseLong(last);
+			if(start < 0L || end < start) {
+				return null;
+			}
+			return start >= length ? new long[0] : new long[]{start, Math.min(end, length - 1)};
+		}
+		catch(final NumberFormatException ex) {
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the entity tag of a file. It is a hash of the file content, computed the first time the file is served after a build
+	 * (or after the file has changed).
+	 *
+	 * @param file The file.
+	 * @param attributes The file attributes.
+	 *
+	 * @return The entity tag (quoted).
+	 *
+	 * @throws IOException If any I/O exception occurs while hashing the file.
+	 */
+
+	private String getEntityTag(final File file, final BasicFileAttributes attributes) throws IOException {
+		final long lastModified = attributes.lastModifiedTime().toMillis();
+		final EntityTag entityTag = entityTags.get(file);
+		if(entityTag != null && entityTag.lastModified == lastModified && entityTag.length == attributes.size()) {
+			return entityTag.value;
+		}
+
+		final String value = "\"" + com.google.common.io.Files.asByteSource(file).hash(Hashing.sha256()) + "\"";
+		entityTags.put(file, new EntityTag(lastModified, attributes.size(), value));
+		return value;
+	}
+
+	/**
+	 * Checks whether the client already has the current version of a file ("If-None-Match" and "If-Modified-Since" headers).
+	 *
+	 * @param headers The request headers.
+	 * @param entityTag The file entity tag.
+	 * @param lastModified The file last modification time (in milliseconds).
+	 *
+	 * @return Whether a "304 Not Modified" response can be sent.
+	 */
+
+	private static boolean isNotModified(final Map<String, String> headers, final String entityTag, final long lastModified) {
+		final String ifNoneMatch = headers.get("if-none-match");
+		if(ifNoneMatch != null) {
+			for(String tag : ifNoneMatch.split(",")) {
+				tag = tag.trim();
+				if(tag.startsWith("W/")) {
+					tag = tag.substring(2);
+				}
+				if(tag.equals("*") || tag.equals(entityTag)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		final String ifModifiedSince = headers.get("if-modified-since");
+		if(ifModifiedSince != null) {
+			try {
+				return lastModified / 1000L <= ZonedDateTime.parse(ifModifiedSince, DateTimeFormatter.RFC_1123_DATE_TIME).toEpochSecond();
+			}
+			catch(final DateTimeParseException ex) {}
+		}
+		return false;
+	}
+
 	public final DocsProject getProject() {
 		return project;
 	}
 
 	public final void setProject(final DocsProject project) {
 		this.project = project;
+		entityTags.clear();
+	}
+
+	public final LazyRenderer getRenderer() {
+		return renderer;
+	}
+
+	public final void setRenderer(final LazyRenderer renderer) {
+		this.renderer = renderer;
+		entityTags.clear();
 	}
 
 	public final long getLastBuild() {
@@ -111,6 +339,47 @@ public class DocsServer extends NanoHTTPD {
 
 	public final void setLastBuild(final long lastBuild) {
 		this.lastBuild = lastBuild;
+		entityTags.clear();
+	}
+
+	/**
+	 * Represents the entity tag of a file.
+	 */
+
+	private static class EntityTag {
+
+		/**
+		 * The file last modification time (in milliseconds) when the tag has been computed.
+		 */
+
+		private final long lastModified;
+
+		/**
+		 * The file length when the tag has been computed.
+		 */
+
+		private final long length;
+
+		/**
+		 * The entity tag (quoted).
+		 */
+
+		private final String value;
+
+		/**
+		 * Creates a new EntityTag instance.
+		 *
+		 * @param lastModified The file last modification time (in milliseconds).
+		 * @param length The file length.
+		 * @param value The entity tag (quoted).
+		 */
+
+		private EntityTag(final long lastModified, final long length, final String value) {
+			this.lastModified = lastModified;
+			this.length = length;
+			this.value = value;
+		}
+
 	}
 
 }
\ No newline at end of file
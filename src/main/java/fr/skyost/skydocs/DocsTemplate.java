@@ -12,7 +12,6 @@ import org.jtwig.environment.EnvironmentConfigurationBuilder;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -64,6 +63,12 @@ public class DocsTemplate {
 	
 	private String template;
 	
+	/**
+	 * Cached compiled page.html (shared by all pages, only the model changes between them).
+	 */
+	
+	private volatile JtwigTemplate compiledTemplate;
+	
 	/**
 	 * Creates a new DocsTemplate instance.
 	 * 
@@ -148,6 +153,45 @@ public class DocsTemplate {
 		final JtwigModel model = createModel();
 		final IncludeFileFunction includeFile = new IncludeFileFunction(themeDirectory, model, false);
 		template = includeFile.renderIncludeFile(pageTemplate);
+		
+		final IncludeFileFunction renderIncludeFile = new IncludeFileFunction(themeDirectory, null, RANGE_FUNCTION);
+		final EnvironmentConfiguration configuration = EnvironmentConfigurationBuilder.configuration().functions().add(renderIncludeFile).add(RANGE_FUNCTION).and().build();
+		compiledTemplate = JtwigTemplate.inlineTemplate(template, configuration);
+	}
+	
+	/**
+	 * Invalidates the compiled template. It will be loaded again from the theme directory the next time it is applied.
+	 */
+	
+	public final void invalidate() {
+		compiledTemplate = null;
+	}
+	
+	/**
+	 * Gets the compiled template, loading it from the theme directory if it has been invalidated.
+	 * 
+	 * @return The compiled template.
+	 * 
+	 * @throws IOException If an exception occurs while reading the template.
+	 */
+	
+	private JtwigTemplate getCompiledTemplate() throws IOException {
+		JtwigTemplate compiledTemplate = this.compiledTemplate;
+		if(compiledTemplate != null) {
+			return compiledTemplate;
+		}
+		
+		synchronized(this) {
+			if(this.compiledTemplate == null) {
+				try {
+					loadFromTemplateDirectory();
+				}
+				catch(final InvalidTemplateException ex) {
+					throw new IOException(ex);
+				}
+			}
+			return this.compiledTemplate;
+		}
 	}
 	
 	/**
@@ -180,19 +224,26 @@ public class DocsTemplate {
 		}
 		
 		final JtwigModel model = createModel(otherVariables).with(Constants.VARIABLE_PAGE, page);
-		final IncludeFileFunction includeFile = new IncludeFileFunction(themeDirectory, model, RANGE_FUNCTION);
-		final EnvironmentConfiguration configuration = EnvironmentConfigurationBuilder.configuration().functions().add(includeFile).add(RANGE_FUNCTION).and().build();
 		
 		if(otherVariables != null) {
 			page.addAdditionalVariables(otherVariables);
 		}
 		
-		String content = JtwigTemplate.inlineTemplate(template, configuration).render(model);
+		final BuildMetrics metrics = project.getMetrics();
+		long start = metrics.start();
+		String content = getCompiledTemplate().render(model);
+		metrics.stop(BuildMetrics.Phase.JTWIG_RENDER, start);
 		if(compress && com.google.common.io.Files.getFileExtension(file.getPath()).equalsIgnoreCase("html")) {
+			start = metrics.start();
 			content = HTML_COMPRESSOR.compress(content);
+			metrics.stop(BuildMetrics.Phase.HTML_COMPRESSION, start);
 		}
 		
-		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+		start = metrics.start();
+		final byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+		project.getBuildOutput().write(file, bytes);
+		metrics.stop(BuildMetrics.Phase.DISK_WRITE, start);
+		metrics.addWrittenFile(bytes.length);
 	}
 	
 	/**
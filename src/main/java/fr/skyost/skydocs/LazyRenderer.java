@@ -0,0 +1,126 @@
+package fr.skyost.skydocs;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Renders pages the first time they are requested (used by the lazy mode of the "serve" command, whose builds do not convert pages).
+ * Rendered pages are written to the project build output, and are rendered again once they have been invalidated.
+ * All methods may be called from any thread.
+ */
+
+public class LazyRenderer {
+
+	/**
+	 * The project (null if it has not been loaded).
+	 */
+
+	private volatile DocsProject project;
+
+	/**
+	 * The pages of the project (mapped by absolute build destination).
+	 */
+
+	private volatile Map<File, DocsPage> pages = Collections.emptyMap();
+
+	/**
+	 * The build destinations of the pages that have been rendered since the last invalidation.
+	 */
+
+	private volatile Set<File> rendered = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Creates a new LazyRenderer instance.
+	 *
+	 * @param project The project (null if it has not been loaded).
+	 */
+
+	public LazyRenderer(final DocsProject project) {
+		setProject(project);
+	}
+
+	/**
+	 * Renders the page whose build destination is the specified file, unless it has already been rendered.
+	 *
+	 * @param file The requested file.
+	 *
+	 * @return Whether the file is the build destination of a page.
+	 *
+	 * @throws IOException If any exception occurs while writing the page.
+	 */
+
+	public final boolean render(final File file) throws IOException {
+		final File destination = file.getAbsoluteFile();
+		final DocsPage page = pages.get(destination);
+		if(page == null) {
+			return false;
+		}
+
+		// If the pages are invalidated while this one is rendered, it will be rendered again on the next request.
+		final Set<File> rendered = this.rendered;
+		synchronized(page) {
+			if(rendered.contains(destination)) {
+				return true;
+			}
+
+			final DocsProject project = this.project;
+			final long start = project.getMetrics().start();
+			page.clearDependencies();
+			page.clearRenderedContent();
+			project.getTemplate().applyTemplate(page.getBuildDestination(), false, page, null);
+			project.getMetrics().addPage(page, start);
+			rendered.add(destination);
+		}
+		return true;
+	}
+
+	/**
+	 * Invalidates all rendered pages (and menus), so that they are rendered again the next time they are requested.
+	 */
+
+	public final void invalidate() {
+		rendered = ConcurrentHashMap.newKeySet();
+
+		final DocsProject project = this.project;
+		if(project != null) {
+			for(final DocsMenu menu : project.getMenus()) {
+				menu.invalidate();
+			}
+		}
+	}
+
+	/**
+	 * Returns the project.
+	 *
+	 * @return The project (null if it has not been loaded).
+	 */
+
+	public final DocsProject getProject() {
+		return project;
+	}
+
+	/**
+	 * Sets the project (all rendered pages are invalidated).
+	 *
+	 * @param project The project (null if it has not been loaded).
+	 */
+
+	public final void setProject(final DocsProject project) {
+		final Map<File, DocsPage> pages = new HashMap<>();
+		if(project != null) {
+			for(final DocsPage page : project.getPages()) {
+				pages.put(page.getBuildDestination().getAbsoluteFile(), page);
+			}
+		}
+
+		this.project = project;
+		this.pages = pages;
+		invalidate();
+	}
+
+}
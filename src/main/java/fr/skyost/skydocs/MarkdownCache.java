@@ -0,0 +1,170 @@
+package fr.skyost.skydocs;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import fr.skyost.skydocs.search.SearchText;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Keeps the CommonMark output of page contents in memory, so that pages whose Jtwig-rendered text has not changed
+ * are not parsed again (used by the "serve" command, which rebuilds the same project many times).
+ * Entries are keyed by a hash of the text, and the least recently used ones are evicted when the cache exceeds its size.
+ * All methods may be called from any thread.
+ */
+
+public class MarkdownCache {
+
+	/**
+	 * The approximate size (in characters) of an entry without its content.
+	 */
+
+	private static final int ENTRY_OVERHEAD = 64;
+
+	/**
+	 * The maximum size of the cache (in characters).
+	 */
+
+	private final long maxSize;
+
+	/**
+	 * The entries, from the least recently used to the most recently used.
+	 */
+
+	private final LinkedHashMap<HashCode, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+	/**
+	 * The current size of the cache (in characters).
+	 */
+
+	private long size;
+
+	/**
+	 * Creates a new MarkdownCache instance.
+	 *
+	 * @param maxSize The maximum size of the cache (in characters).
+	 */
+
+	public MarkdownCache(final long maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Returns the key of a Markdown text.
+	 *
+	 * @param markdown The Markdown text (rendered by Jtwig).
+	 *
+	 * @return The key.
+	 */
+
+	public static HashCode key(final String markdown) {
+		return Hashing.sha256().hashString(markdown, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Returns the cached output of a Markdown text.
+	 *
+	 * @param key The key of the Markdown text.
+	 *
+	 * @return The cached output, or null if there is none.
+	 */
+
+	public final synchronized Entry get(final HashCode key) {
+		return entries.get(key);
+	}
+
+	/**
+	 * Caches the output of a Markdown text, evicting the least recently used entries if needed.
+	 * Entries that are bigger than the cache itself are not cached.
+	 *
+	 * @param key The key of the Markdown text.
+	 * @param entry The output.
+	 */
+
+	public final synchronized void put(final HashCode key, final Entry entry) {
+		if(entry.size() > maxSize) {
+			return;
+		}
+
+		final Entry previous = entries.put(key, entry);
+		if(previous != null) {
+			size -= previous.size();
+		}
+		size += entry.size();
+
+		final Iterator<Entry> iterator = entries.values().iterator();
+		while(size > maxSize && iterator.hasNext()) {
+			size -= iterator.next().size();
+			iterator.remove();
+		}
+	}
+
+	/**
+	 * Represents the CommonMark output of a Markdown text.
+	 */
+
+	public static class Entry {
+
+		/**
+		 * The rendered HTML.
+		 */
+
+		private final String content;
+
+		/**
+		 * The searchable text (null if it has not been extracted).
+		 */
+
+		private final SearchText searchText;
+
+		/**
+		 * Creates a new Entry instance.
+		 *
+		 * @param content The rendered HTML.
+		 * @param searchText The searchable text (null if it has not been extracted).
+		 */
+
+		public Entry(final String content, final SearchText searchText) {
+			this.content = content;
+			this.searchText = searchText;
+		}
+
+		/**
+		 * Returns the rendered HTML.
+		 *
+		 * @return The rendered HTML.
+		 */
+
+		public final String getContent() {
+			return content;
+		}
+
+		/**
+		 * Returns the searchable text.
+		 *
+		 * @return The searchable text (null if it has not been extracted).
+		 */
+
+		public final SearchText getSearchText() {
+			return searchText;
+		}
+
+		/**
+		 * Returns the approximate size of this entry.
+		 *
+		 * @return The approximate size of this entry (in characters).
+		 */
+
+		private long size() {
+			long size = ENTRY_OVERHEAD + content.length();
+			if(searchText != null) {
+				size += searchText.getHeadings().length() + searchText.getBody().length();
+			}
+			return size;
+		}
+
+	}
+
+}
@@ -0,0 +1,242 @@
+package fr.skyost.skydocs;
+
+import com.google.common.hash.Hashing;
+import fi.iki.elonen.NanoHTTPD;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A build output that keeps files in memory, so that the "serve" command does not have to write them to the disk and to read them back.
+ * Once the memory cap is reached, files are written to the disk (and are served from there).
+ */
+
+public class MemoryBuildOutput extends BuildOutput {
+
+	/**
+	 * The maximum number of bytes kept in memory.
+	 */
+
+	private final long maxSize;
+
+	/**
+	 * The stored files (by normalized absolute path).
+	 */
+
+	private final Map<String, StoredFile> files = new ConcurrentHashMap<>();
+
+	/**
+	 * The number of bytes kept in memory.
+	 */
+
+	private long size;
+
+	/**
+	 * Creates a new MemoryBuildOutput instance.
+	 *
+	 * @param maxSize The maximum number of bytes kept in memory.
+	 */
+
+	public MemoryBuildOutput(final long maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	@Override
+	public final OutputStream newOutputStream(final File file) {
+		return new ByteArrayOutputStream() {
+
+			/**
+			 * Whether the stream has been closed.
+			 */
+
+			private boolean closed;
+
+			@Override
+			public void close() throws IOException {
+				if(!closed) {
+					closed = true;
+					MemoryBuildOutput.this.write(file, toByteArray());
+				}
+			}
+
+		};
+	}
+
+	@Override
+	public final void write(final File file, final byte[] bytes) throws IOException {
+		final StoredFile stored = new StoredFile(bytes, NanoHTTPD.getMimeTypeForFile(file.getName()), Hashing.sha256().hashBytes(bytes).toString(), System.currentTimeMillis());
+		if(!store(getKey(file), stored)) {
+			super.write(file, bytes);
+		}
+	}
+
+	@Override
+	public final long copy(final File source, final File destination, final boolean replace) throws IOException {
+		if(!replace && exists(destination)) {
+			throw new FileAlreadyExistsException(destination.getPath());
+		}
+		// Large files (like videos) are directly copied to the disk instead of being read first.
+		if(source.length() > getFreeSize()) {
+			remove(getKey(destination));
+			return super.copy(source, destination, true);
+		}
+
+		final byte[] bytes = Files.readAllBytes(source.toPath());
+		write(destination, bytes);
+		return bytes.length;
+	}
+
+	@Override
+	public final void createDirectory(final File directory) {}
+
+	@Override
+	public final boolean exists(final File file) {
+		return files.containsKey(getKey(file)) || super.exists(file);
+	}
+
+	@Override
+	public final boolean isDirectory(final File directory) {
+		if(super.isDirectory(directory)) {
+			return true;
+		}
+		final String prefix = getKey(directory) + File.separator;
+		for(final String path : files.keySet()) {
+			if(path.startsWith(prefix)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public final long getLength(final File file) {
+		final StoredFile stored = files.get(getKey(file));
+		return stored == null ? super.getLength(file) : stored.getContent().length;
+	}
+
+	@Override
+	public final File[] listFiles(final File directory) {
+		final TreeSet<String> names = new TreeSet<>();
+		final File[] children = super.listFiles(directory);
+		if(children != null) {
+			for(final File child : children) {
+				names.add(child.getName());
+			}
+		}
+
+		final String prefix = getKey(directory) + File.separator;
+		for(final String path : files.keySet()) {
+			if(path.startsWith(prefix)) {
+				final int separator = path.indexOf(File.separatorChar, prefix.length());
+				names.add(separator == -1 ? path.substring(prefix.length()) : path.substring(prefix.length(), separator));
+			}
+		}
+		if(children == null && names.isEmpty()) {
+			return null;
+		}
+
+		final File[] result = new File[names.size()];
+		int i = 0;
+		for(final String name : names) {
+			result[i++] = new File(directory, name);
+		}
+		return result;
+	}
+
+	@Override
+	public final boolean delete(final File file) {
+		final boolean removed = remove(getKey(file));
+		return super.delete(file) || removed;
+	}
+
+	@Override
+	public final boolean clear(final File directory) {
+		final String prefix = getKey(directory) + File.separator;
+		synchronized(this) {
+			final Iterator<Map.Entry<String, StoredFile>> iterator = files.entrySet().iterator();
+			while(iterator.hasNext()) {
+				final Map.Entry<String, StoredFile> entry = iterator.next();
+				if(entry.getKey().startsWith(prefix)) {
+					size -= entry.getValue().getContent().length;
+					iterator.remove();
+				}
+			}
+		}
+		// The directory is still created on the disk : resources (like the search page template) are extracted there before being rendered.
+		return super.clear(directory);
+	}
+
+	@Override
+	public final StoredFile getStoredFile(final File file) {
+		return files.get(getKey(file));
+	}
+
+	/**
+	 * Stores a file in memory if the memory cap allows it.
+	 *
+	 * @param key The file key.
+	 * @param stored The file.
+	 *
+	 * @return Whether the file has been stored (if not, any previous version has been removed from the memory).
+	 */
+
+	private synchronized boolean store(final String key, final StoredFile stored) {
+		final StoredFile previous = files.get(key);
+		final long newSize = size - (previous == null ? 0L : previous.getContent().length) + stored.getContent().length;
+		if(newSize > maxSize) {
+			remove(key);
+			return false;
+		}
+		files.put(key, stored);
+		size = newSize;
+		return true;
+	}
+
+	/**
+	 * Removes a file from the memory.
+	 *
+	 * @param key The file key.
+	 *
+	 * @return Whether the file was stored in memory.
+	 */
+
+	private synchronized boolean remove(final String key) {
+		final StoredFile removed = files.remove(key);
+		if(removed == null) {
+			return false;
+		}
+		size -= removed.getContent().length;
+		return true;
+	}
+
+	/**
+	 * Returns the number of bytes that can still be kept in memory.
+	 *
+	 * @return The number of bytes that can still be kept in memory.
+	 */
+
+	private synchronized long getFreeSize() {
+		return maxSize - size;
+	}
+
+	/**
+	 * Returns the key of a file.
+	 *
+	 * @param file The file.
+	 *
+	 * @return The normalized absolute path of the file.
+	 */
+
+	private static String getKey(final File file) {
+		return file.getAbsoluteFile().toPath().normalize().toString();
+	}
+
+}
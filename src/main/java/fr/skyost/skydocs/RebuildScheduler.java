@@ -0,0 +1,184 @@
+package fr.skyost.skydocs;
+
+import io.methvin.watcher.DirectoryChangeEvent;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Groups file changes that happen within a quiet window and triggers a single rebuild for all of them.
+ * If new changes arrive while a rebuild is running, the rebuild is cancelled and its changes are merged with the new ones.
+ */
+
+public class RebuildScheduler {
+
+	/**
+	 * The thread that runs rebuilds.
+	 */
+
+	private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		final Thread thread = new Thread(runnable, "SkyDocs rebuild scheduler");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/**
+	 * The quiet window (in milliseconds).
+	 */
+
+	private final long quietWindow;
+
+	/**
+	 * The rebuild listener.
+	 */
+
+	private final RebuildListener listener;
+
+	/**
+	 * Changes that are waiting for a rebuild.
+	 */
+
+	private final LinkedHashMap<File, DirectoryChangeEvent.EventType> pending = new LinkedHashMap<>();
+
+	/**
+	 * The next scheduled rebuild.
+	 */
+
+	private ScheduledFuture<?> scheduled;
+
+	/**
+	 * Whether a rebuild is running.
+	 */
+
+	private boolean building;
+
+	/**
+	 * Whether the running rebuild has been cancelled.
+	 */
+
+	private boolean cancelled;
+
+	/**
+	 * Creates a new RebuildScheduler instance.
+	 *
+	 * @param quietWindow The quiet window (in milliseconds).
+	 * @param listener The rebuild listener.
+	 */
+
+	public RebuildScheduler(final long quietWindow, final RebuildListener listener) {
+		this.quietWindow = Math.max(0L, quietWindow);
+		this.listener = listener;
+	}
+
+	/**
+	 * Adds a file change. The rebuild is postponed until no change has happened during the quiet window.
+	 *
+	 * @param file The file.
+	 * @param eventType The change type.
+	 */
+
+	public final synchronized void schedule(final File file, final DirectoryChangeEvent.EventType eventType) {
+		pending.merge(file, eventType, RebuildScheduler::mergeChanges);
+
+		if(scheduled != null) {
+			scheduled.cancel(false);
+		}
+		if(building && !cancelled) {
+			cancelled = true;
+			listener.cancel();
+		}
+		scheduled = executor.schedule(this::flush, quietWindow, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Returns the quiet window.
+	 *
+	 * @return The quiet window (in milliseconds).
+	 */
+
+	public final long getQuietWindow() {
+		return quietWindow;
+	}
+
+	/**
+	 * Stops this scheduler. Pending changes are discarded.
+	 */
+
+	public final synchronized void close() {
+		pending.clear();
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Rebuilds with all pending changes.
+	 */
+
+	private void flush() {
+		final Map<File, DirectoryChangeEvent.EventType> changes;
+		synchronized(this) {
+			if(pending.isEmpty()) {
+				return;
+			}
+			changes = new LinkedHashMap<>(pending);
+			pending.clear();
+			building = true;
+			cancelled = false;
+		}
+
+		try {
+			listener.rebuild(changes);
+		}
+		finally {
+			synchronized(this) {
+				building = false;
+				if(cancelled) {
+					// Our changes happened before the pending ones, so they are merged as the previous ones.
+					for(final Map.Entry<File, DirectoryChangeEvent.EventType> change : changes.entrySet()) {
+						pending.merge(change.getKey(), change.getValue(), (current, previous) -> mergeChanges(previous, current));
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Merges two changes of the same file. Creations and deletions take precedence over modifications (they require the project to be reloaded).
+	 *
+	 * @param previous The previous change.
+	 * @param current The current change.
+	 *
+	 * @return The merged change.
+	 */
+
+	private static DirectoryChangeEvent.EventType mergeChanges(final DirectoryChangeEvent.EventType previous, final DirectoryChangeEvent.EventType current) {
+		return previous == DirectoryChangeEvent.EventType.MODIFY ? current : previous;
+	}
+
+	/**
+	 * Allows to run and cancel rebuilds.
+	 */
+
+	public interface RebuildListener {
+
+		/**
+		 * Rebuilds the project.
+		 *
+		 * @param changes The changed files (with the type of change).
+		 */
+
+		void rebuild(final Map<File, DirectoryChangeEvent.EventType> changes);
+
+		/**
+		 * Cancels the running rebuild.
+		 */
+
+		void cancel();
+
+	}
+
+}
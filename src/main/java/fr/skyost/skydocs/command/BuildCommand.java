@@ -1,15 +1,23 @@
 package fr.skyost.skydocs.command;
 
 import com.beust.jcommander.Parameter;
+import fr.skyost.skydocs.BuildMetrics;
+import fr.skyost.skydocs.BuildOutput;
+import fr.skyost.skydocs.Constants;
+import fr.skyost.skydocs.DocsManifest;
+import fr.skyost.skydocs.DocsPage;
 import fr.skyost.skydocs.DocsProject;
+import fr.skyost.skydocs.MarkdownCache;
 import fr.skyost.skydocs.task.build.ConvertFilesTask;
 import fr.skyost.skydocs.task.build.CopyAssetsTask;
 import fr.skyost.skydocs.task.build.CreateBuildDirectoryTask;
 import fr.skyost.skydocs.task.build.ReloadProjectTask;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.PrintStream;
 import java.util.HashSet;
+import java.util.Set;
 
 /**
  * "build" command.
@@ -29,6 +37,30 @@ public class BuildCommand extends Command<BuildCommand.Arguments> {
 	
 	private DocsProject project;
 
+	/**
+	 * The files that have changed since the previous build (null if unknown).
+	 */
+
+	private Set<File> changedFiles;
+
+	/**
+	 * The metrics of the current build (null if metrics are not collected).
+	 */
+
+	private BuildMetrics metrics;
+
+	/**
+	 * The cache of the CommonMark output of page contents (null if there is none).
+	 */
+
+	private MarkdownCache markdownCache;
+
+	/**
+	 * Where the build writes its files (null to write them to the disk).
+	 */
+
+	private BuildOutput buildOutput;
+
 	/**
 	 * Task that allows to create the build directory.
 	 */
@@ -72,39 +104,174 @@ public class BuildCommand extends Command<BuildCommand.Arguments> {
 		this.prod = prod;
 
 		this.createBuildDirectoryTask = new CreateBuildDirectoryTask(null, out);
-		this.convertFilesTask = new ConvertFilesTask(null, prod, out);
-		this.copyAssetsTask = new CopyAssetsTask(null, null, prod, out);
+		this.convertFilesTask = new ConvertFilesTask(null, prod, Math.max(1, this.getArguments().threads), out);
+		this.copyAssetsTask = new CopyAssetsTask(null, null, prod, Math.max(1, this.getArguments().threads), out);
 
 		this.setSubTasks(createBuildDirectoryTask, convertFilesTask, copyAssetsTask);
+		this.metrics = this.getArguments().metrics == null ? null : new BuildMetrics();
 		reloadProject();
 	}
 	
 	@Override
-	public final Boolean execute() {
+	public final Boolean execute() throws InterruptionException, IOException {
 		if(project == null) {
 			return null;
 		}
 
 		outputLine("Running build command...");
 
+		DocsManifest manifest = null;
+		if(this.getArguments().incremental) {
+			manifest = new DocsManifest(project);
+			manifest.load();
+			manifest.scan(project, prod);
+		}
+
+		createBuildDirectoryTask.setShouldClean(manifest == null || !manifest.isLoaded());
+		convertFilesTask.setManifest(manifest);
+		convertFilesTask.setPagesToConvert(changedFiles == null || manifest == null || !manifest.isLoaded() ? null : getAffectedPages(manifest));
+		copyAssetsTask.setManifest(manifest);
+
 		if(createBuildDirectoryTask.run() == null) {
 			return null;
 		}
+		project.getMetrics().addTask(createBuildDirectoryTask);
+		exitIfInterrupted();
 
 		final HashSet<File> copied = convertFilesTask.run();
 		if(copied == null) {
 			return null;
 		}
+		project.getMetrics().addTask(convertFilesTask);
+		exitIfInterrupted();
 
 		copyAssetsTask.setAlreadyCopiedFileList(copied);
 		if(copyAssetsTask.run() == null) {
 			return null;
 		}
+		project.getMetrics().addTask(copyAssetsTask);
+		exitIfInterrupted();
+
+		if(manifest != null) {
+			final int deleted = manifest.deleteOrphans();
+			if(deleted > 0) {
+				outputLine("Deleted " + deleted + " orphaned file(s).");
+			}
+			manifest.save();
+		}
+
+		if(metrics != null) {
+			final File metricsFile = new File(this.getArguments().metrics);
+			metrics.save(metricsFile, Constants.METRICS_SLOWEST_PAGES);
+			outputLine("Build metrics have been written to \"" + metricsFile.getPath() + "\".");
+
+			metrics = new BuildMetrics();
+			project.setMetrics(metrics);
+		}
 
 		outputLine("Finished ! You just have to put the content of \"" + project.getBuildDirectory().getPath() + "\" on your web server.");
 		return true;
 	}
 	
+	/**
+	 * Returns the pages affected by the changed files (the changed pages and the pages that include a changed file).
+	 *
+	 * @param manifest The loaded build manifest.
+	 *
+	 * @return The affected pages.
+	 */
+
+	private Set<DocsPage> getAffectedPages(final DocsManifest manifest) {
+		final Set<File> dependents = new HashSet<>();
+		for(final File dependent : manifest.getDependents(changedFiles)) {
+			dependents.add(dependent.getAbsoluteFile());
+		}
+
+		final Set<DocsPage> pages = new HashSet<>();
+		for(final DocsPage page : project.getPages()) {
+			if(dependents.contains(page.getFile().getAbsoluteFile())) {
+				pages.add(page);
+			}
+		}
+		return pages;
+	}
+	
+	/**
+	 * Returns the files that have changed since the previous build.
+	 * 
+	 * @return The changed files (null if unknown).
+	 */
+	
+	public final Set<File> getChangedFiles() {
+		return changedFiles;
+	}
+	
+	/**
+	 * Sets the files that have changed since the previous build. If the build is incremental, only the pages affected by these files are converted.
+	 * 
+	 * @param changedFiles The changed files (null if unknown).
+	 */
+	
+	public final void setChangedFiles(final Set<File> changedFiles) {
+		this.changedFiles = changedFiles;
+	}
+	
+	/**
+	 * Returns the metrics of the current build.
+	 * 
+	 * @return The metrics of the current build (null if metrics are not collected).
+	 */
+	
+	public final BuildMetrics getMetrics() {
+		return metrics;
+	}
+	
+	/**
+	 * Returns the cache of the CommonMark output of page contents.
+	 *
+	 * @return The cache of the CommonMark output of page contents (null if there is none).
+	 */
+
+	public final MarkdownCache getMarkdownCache() {
+		return markdownCache;
+	}
+
+	/**
+	 * Sets the cache of the CommonMark output of page contents. It is kept when the project is reloaded.
+	 *
+	 * @param markdownCache The cache of the CommonMark output of page contents (null if page contents should always be parsed).
+	 */
+
+	public final void setMarkdownCache(final MarkdownCache markdownCache) {
+		this.markdownCache = markdownCache;
+		if(project != null) {
+			project.setMarkdownCache(markdownCache);
+		}
+	}
+
+	/**
+	 * Returns where the build writes its files.
+	 *
+	 * @return Where the build writes its files (null if they are written to the disk).
+	 */
+
+	public final BuildOutput getBuildOutput() {
+		return buildOutput;
+	}
+
+	/**
+	 * Sets where the build writes its files. It is kept when the project is reloaded.
+	 *
+	 * @param buildOutput Where the build writes its files (null to write them to the disk).
+	 */
+
+	public final void setBuildOutput(final BuildOutput buildOutput) {
+		this.buildOutput = buildOutput;
+		if(project != null) {
+			project.setBuildOutput(buildOutput);
+		}
+	}
+
 	/**
 	 * Checks if the command is in prod mode.
 	 * 
@@ -120,7 +287,10 @@ public class BuildCommand extends Command<BuildCommand.Arguments> {
 	 */
 	
 	public final void reloadProject() {
-		new ReloadProjectTask(this, new File(this.getArguments().directory), this.getOutputStream()).run();
+		final ReloadProjectTask task = new ReloadProjectTask(this, new File(this.getArguments().directory), this.getOutputStream());
+		if(task.run() != null && metrics != null) {
+			metrics.addTask(task);
+		}
 	}
 	
 	/**
@@ -141,6 +311,11 @@ public class BuildCommand extends Command<BuildCommand.Arguments> {
 	
 	public final void setProject(final DocsProject project) {
 		this.project = project;
+		if(project != null) {
+			project.setMetrics(metrics);
+			project.setMarkdownCache(markdownCache);
+			project.setBuildOutput(buildOutput);
+		}
 
 		createBuildDirectoryTask.setProject(project);
 		convertFilesTask.setProject(project);
@@ -186,6 +361,15 @@ public class BuildCommand extends Command<BuildCommand.Arguments> {
 		@Parameter(names = {"-directory", "-d"}, description = "Sets the current build directory.")
 		public String directory = System.getProperty("user.dir");
 
+		@Parameter(names = {"-threads", "-t"}, description = "Sets the number of threads used to load pages, convert pages and process assets.")
+		public int threads = Runtime.getRuntime().availableProcessors();
+
+		@Parameter(names = {"-incremental", "-i"}, description = "Only rebuilds what has changed since the previous build.")
+		public boolean incremental = false;
+
+		@Parameter(names = {"-metrics", "-m"}, description = "Writes the build metrics (task and phase timings, slowest pages, written files) to the specified JSON file.")
+		public String metrics = null;
+
 	}
 	
 }
\ No newline at end of file
@@ -39,6 +39,7 @@ public class CommandManager {
 
 	public CommandManager(final CommandExecutor defaultExecutor) {
 		register(args -> new NewCommand(copyOfRangeIfPossible(args)).run(), Constants.COMMAND_NEW);
+		register(args -> new GenerateCommand(copyOfRangeIfPossible(args)).run(), Constants.COMMAND_GENERATE);
 		register(args -> new BuildCommand(true, copyOfRangeIfPossible(args)).run(), Constants.COMMAND_BUILD);
 		register(args -> new ServeCommand(copyOfRangeIfPossible(args)).run(false), Constants.COMMAND_SERVE);
 		register(args -> new UpdateCommand().run(false), Constants.COMMAND_UPDATE);
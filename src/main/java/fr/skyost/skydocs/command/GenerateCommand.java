@@ -0,0 +1,117 @@
+package fr.skyost.skydocs.command;
+
+import com.beust.jcommander.Parameter;
+import fr.skyost.skydocs.Constants;
+import fr.skyost.skydocs.exception.ProjectAlreadyExistsException;
+import fr.skyost.skydocs.utils.ProjectGenerator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.net.URISyntaxException;
+
+/**
+ * "generate" command.
+ */
+
+public class GenerateCommand extends Command<GenerateCommand.Arguments> {
+
+	/**
+	 * Creates a new Command instance.
+	 *
+	 * @param args User arguments.
+	 */
+
+	public GenerateCommand(final String... args) {
+		this(System.out, System.in, args);
+	}
+
+	/**
+	 * Creates a new Command instance.
+	 *
+	 * @param out The output stream.
+	 * @param in The input stream.
+	 * @param args User arguments.
+	 */
+
+	public GenerateCommand(final PrintStream out, final InputStream in, final String... args) {
+		super(out, in, args, new Arguments());
+	}
+
+	@Override
+	public final Boolean execute() throws ProjectAlreadyExistsException, IOException, URISyntaxException {
+		final Arguments arguments = this.getArguments();
+		final File directory = new File(arguments.directory);
+
+		if(new File(directory, Constants.FILE_PROJECT_DATA).exists()) {
+			throw new ProjectAlreadyExistsException("A project already exists in that location !");
+		}
+
+		output("Generating a project of " + arguments.pages + " pages in the directory \"" + directory + "\"... ");
+
+		final ProjectGenerator generator = new ProjectGenerator(directory, arguments.seed);
+		generator.setPages(arguments.pages);
+		generator.setLanguages(arguments.languages);
+		generator.setPagesPerDirectory(arguments.pagesPerDirectory);
+		generator.setHeaderSize(arguments.headerSize);
+		generator.setParagraphs(arguments.paragraphs);
+		generator.setMenuRootEntries(arguments.menuRootEntries);
+		generator.setMenuFanOut(arguments.menuFanOut);
+		generator.setMenuDepth(arguments.menuDepth);
+		generator.setIncludeDepth(arguments.includeDepth);
+		generator.setAssets(arguments.assets);
+		generator.setAssetSize(arguments.assetSize);
+		generator.generate();
+
+		return true;
+	}
+
+	/**
+	 * Command arguments.
+	 */
+
+	public static class Arguments {
+
+		@Parameter(names = {"-directory", "-d"}, description = "Sets the generated project directory.")
+		public String directory = System.getProperty("user.dir");
+
+		@Parameter(names = {"-seed", "-s"}, description = "Sets the seed used to generate the project (the same seed always generates the same project).")
+		public long seed = 42L;
+
+		@Parameter(names = {"-pages", "-p"}, description = "Sets the total number of pages.")
+		public int pages = 1000;
+
+		@Parameter(names = {"-languages", "-l"}, description = "Sets the number of languages (pages are evenly spread across languages).")
+		public int languages = 1;
+
+		@Parameter(names = {"-pagesPerDirectory", "-ppd"}, description = "Sets the number of pages per content sub-directory (0 to put every page of a language in the same directory).")
+		public int pagesPerDirectory = 0;
+
+		@Parameter(names = {"-headerSize", "-hs"}, description = "Sets the number of additional front-matter keys per page.")
+		public int headerSize = 0;
+
+		@Parameter(names = {"-paragraphs", "-pa"}, description = "Sets the number of paragraphs per page.")
+		public int paragraphs = 40;
+
+		@Parameter(names = {"-menuRootEntries", "-mr"}, description = "Sets the number of root menu entries.")
+		public int menuRootEntries = 10;
+
+		@Parameter(names = {"-menuFanOut", "-mf"}, description = "Sets the number of children of each menu entry.")
+		public int menuFanOut = 3;
+
+		@Parameter(names = {"-menuDepth", "-md"}, description = "Sets the menu depth.")
+		public int menuDepth = 3;
+
+		@Parameter(names = {"-includeDepth", "-id"}, description = "Sets the number of nested includeFile calls per page.")
+		public int includeDepth = 2;
+
+		@Parameter(names = {"-assets", "-a"}, description = "Sets the number of generated theme assets.")
+		public int assets = 0;
+
+		@Parameter(names = {"-assetSize", "-as"}, description = "Sets the approximate size of each generated asset (in bytes).")
+		public int assetSize = 4096;
+
+	}
+
+}
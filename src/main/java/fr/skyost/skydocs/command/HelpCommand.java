@@ -40,6 +40,9 @@ public class HelpCommand extends Command<HelpCommand.Arguments> {
 		case Constants.COMMAND_NEW:
 			outputLine(Constants.COMMAND_NEW_SYNTAX);
 			break;
+		case Constants.COMMAND_GENERATE:
+			outputLine(Constants.COMMAND_GENERATE_SYNTAX);
+			break;
 		case Constants.COMMAND_BUILD:
 			outputLine(Constants.COMMAND_BUILD_SYNTAX);
 			break;
@@ -58,7 +61,7 @@ public class HelpCommand extends Command<HelpCommand.Arguments> {
 		default:
 			outputLine(Constants.APP_NAME + " " + Constants.APP_VERSION + " by " + Constants.APP_AUTHORS);
 			outputLine("Commands :");
-			for(final String command : new String[]{Constants.COMMAND_NEW_SYNTAX, Constants.COMMAND_BUILD_SYNTAX, Constants.COMMAND_SERVE_SYNTAX, Constants.COMMAND_UPDATE_SYNTAX, Constants.COMMAND_HELP_SYNTAX, Constants.COMMAND_GUI_SYNTAX}){
+			for(final String command : new String[]{Constants.COMMAND_NEW_SYNTAX, Constants.COMMAND_GENERATE_SYNTAX, Constants.COMMAND_BUILD_SYNTAX, Constants.COMMAND_SERVE_SYNTAX, Constants.COMMAND_UPDATE_SYNTAX, Constants.COMMAND_HELP_SYNTAX, Constants.COMMAND_GUI_SYNTAX}){
 				outputLine("* " + command);
 			}
 			break;
@@ -3,8 +3,13 @@ package fr.skyost.skydocs.command;
 import com.beust.jcommander.Parameter;
 import fr.skyost.skydocs.Constants;
 import fr.skyost.skydocs.DocsServer;
+import fr.skyost.skydocs.LazyRenderer;
+import fr.skyost.skydocs.MarkdownCache;
+import fr.skyost.skydocs.MemoryBuildOutput;
+import fr.skyost.skydocs.RebuildScheduler;
 import fr.skyost.skydocs.task.serve.FirstBuildTask;
 import fr.skyost.skydocs.task.serve.NewBuildTask;
+import fr.skyost.skydocs.task.serve.PartialBuildTask;
 import io.methvin.watcher.DirectoryChangeEvent;
 import io.methvin.watcher.DirectoryWatcher;
 
@@ -12,6 +17,11 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * "serve" command.
@@ -43,12 +53,30 @@ public class ServeCommand extends Command<ServeCommand.Arguments> {
 
 	private final FirstBuildTask firstBuildTask;
 
+	/**
+	 * Renders pages when they are requested (null if pages are built before being served).
+	 */
+
+	private final LazyRenderer renderer;
+
 	/**
 	 * The current directory watcher.
 	 */
 
 	private DirectoryWatcher watcher;
 
+	/**
+	 * The scheduler that groups file changes before rebuilding.
+	 */
+
+	private RebuildScheduler scheduler;
+
+	/**
+	 * Whether the running rebuild has been cancelled.
+	 */
+
+	private volatile boolean rebuildCancelled;
+
 	/**
 	 * Creates a new Command instance.
 	 *
@@ -71,9 +99,27 @@ public class ServeCommand extends Command<ServeCommand.Arguments> {
 		super(out, in, args, new Arguments());
 
 		final Arguments arguments = this.getArguments();
-		command  = new BuildCommand(false, null, arguments.directory == null ? null : new String[]{"-directory", arguments.directory});
+		final List<String> buildArguments = new ArrayList<>();
+		if(arguments.directory != null) {
+			buildArguments.add("-directory");
+			buildArguments.add(arguments.directory);
+		}
+		// In lazy mode, builds do not convert pages, so scanning the whole project for changes would cost more than it saves.
+		if(!arguments.lazy) {
+			buildArguments.add("-incremental");
+		}
+		command  = new BuildCommand(false, null, buildArguments.toArray(new String[0]));
+		if(arguments.markdownCacheSize > 0L) {
+			command.setMarkdownCache(new MarkdownCache(arguments.markdownCacheSize));
+		}
+		if(arguments.memoryOutputSize > 0L) {
+			command.setBuildOutput(new MemoryBuildOutput(arguments.memoryOutputSize));
+		}
+		command.getConvertFilesTask().setLazy(arguments.lazy);
+		renderer = arguments.lazy ? new LazyRenderer(command.getProject()) : null;
 
-		newBuildTask = new NewBuildTask(command, true, out);
+		// The project has just been loaded by the build command, so it is only reloaded before the next manual rebuilds.
+		newBuildTask = new NewBuildTask(command, false, out);
 		firstBuildTask = new FirstBuildTask(this, arguments.port, out);
 
 		this.setSubTasks(command, newBuildTask, firstBuildTask);
@@ -85,7 +131,10 @@ public class ServeCommand extends Command<ServeCommand.Arguments> {
 		blankLine();
 
 		if(!arguments.manualRebuild || this.getScanner() == null) {
-			newBuildTask.run();
+			final Long buildTime = newBuildTask.run();
+			if(buildTime != null) {
+				onBuildFinished(buildTime);
+			}
 			server = firstBuildTask.run(false);
 			registerFileListener(server);
 			return null;
@@ -99,13 +148,12 @@ public class ServeCommand extends Command<ServeCommand.Arguments> {
 				return null;
 			}
 
-			if(server != null) {
-				server.setLastBuild(buildTime);
-			}
+			onBuildFinished(buildTime);
 
 			if(firstBuild) {
 				server = firstBuildTask.run(false);
 				registerFileListener(server);
+				newBuildTask.setShouldReloadProject(true);
 			}
 			firstBuild = false;
 
@@ -142,6 +190,10 @@ public class ServeCommand extends Command<ServeCommand.Arguments> {
 			}
 		}
 
+		if(scheduler != null) {
+			scheduler.close();
+		}
+
 		super.interrupt();
 	}
 
@@ -175,6 +227,16 @@ public class ServeCommand extends Command<ServeCommand.Arguments> {
 		return newBuildTask;
 	}
 
+	/**
+	 * Returns the renderer of the lazy mode.
+	 *
+	 * @return The renderer (null if pages are built before being served).
+	 */
+
+	public final LazyRenderer getRenderer() {
+		return renderer;
+	}
+
 	/**
 	 * Returns the directory watcher.
 	 *
@@ -194,12 +256,29 @@ public class ServeCommand extends Command<ServeCommand.Arguments> {
 	 */
 
 	private void registerFileListener(final DocsServer server) throws IOException {
+		scheduler = new RebuildScheduler(this.getArguments().rebuildDelay, new RebuildScheduler.RebuildListener() {
+
+			@Override
+			public void rebuild(final Map<File, DirectoryChangeEvent.EventType> changes) {
+				rebuildIfNeeded(server, changes);
+			}
+
+			@Override
+			public void cancel() {
+				rebuildCancelled = true;
+				command.interrupt();
+			}
+
+		});
+
 		watcher = DirectoryWatcher
 				.builder()
 				.path(command.getProject().getDirectory().toPath())
 				.listener(event -> {
 					final File file = event.path().toFile();
-					rebuildIfNeeded(server, event.eventType() != DirectoryChangeEvent.EventType.MODIFY || server.getProject().shouldReloadProject(file), file);
+					if(getRebuildPath(file) != null) {
+						scheduler.schedule(file, event.eventType());
+					}
 				})
 				.build();
 		watcher.watchAsync();
@@ -208,32 +287,97 @@ public class ServeCommand extends Command<ServeCommand.Arguments> {
 	/**
 	 * Rebuilds the project if needed.
 	 *
+	 * Modified content files only trigger a partial build (the affected pages are converted again),
+	 * other changes (project data, menus, theme, created or deleted files) trigger a new build.
+	 *
 	 * @param server The docs server.
-	 * @param reloadProject Whether the project should be reloaded.
-	 * @param file The file that has changed.
+	 * @param changes The files that have changed (with the type of change).
 	 */
 
-	private synchronized void rebuildIfNeeded(final DocsServer server, final boolean reloadProject, final File file) {
-		final String path = file.getPath().replace(command.getProject().getDirectory().getPath(), "").substring(1);
-		boolean reBuild = false;
-		for(final String toRebuild : Constants.SERVE_REBUILD_PREFIX) {
-			if(path.startsWith(toRebuild)) {
-				reBuild = true;
+	private synchronized void rebuildIfNeeded(final DocsServer server, final Map<File, DirectoryChangeEvent.EventType> changes) {
+		final Set<File> files = new HashSet<>();
+		boolean reloadProject = false;
+		boolean partial = true;
+		boolean invalidateTemplate = false;
+		for(final Map.Entry<File, DirectoryChangeEvent.EventType> change : changes.entrySet()) {
+			final File file = change.getKey();
+			final String path = getRebuildPath(file);
+			if(path == null) {
+				continue;
+			}
+
+			files.add(file);
+			if(change.getValue() != DirectoryChangeEvent.EventType.MODIFY || server.getProject().shouldReloadProject(file)) {
+				reloadProject = true;
+			}
+			if(path.startsWith(Constants.FILE_THEME_DIRECTORY)) {
+				invalidateTemplate = true;
+			}
+			if(!path.startsWith(Constants.FILE_CONTENT_DIRECTORY)) {
+				partial = false;
 			}
 		}
-		if(!reBuild) {
+		if(files.isEmpty()) {
 			return;
 		}
 
-		final Long buildTime = new NewBuildTask(command, reloadProject, this.getOutputStream()).run();
+		if(!reloadProject && invalidateTemplate) {
+			command.getProject().getTemplate().invalidate();
+		}
+
+		rebuildCancelled = false;
+		final Long buildTime = partial && !reloadProject ? new PartialBuildTask(command, files, this.getOutputStream()).run() : new NewBuildTask(command, reloadProject, this.getOutputStream()).run();
+		if(rebuildCancelled) {
+			return;
+		}
 		if(buildTime != null) {
-			server.setLastBuild(buildTime);
+			onBuildFinished(buildTime);
 		}
 
 		outputLine(this.getArguments().manualRebuild ? Constants.SERVE_MANUAL_REBUILD : Constants.SERVE_AUTO_REBUILD);
 		blankLine();
 	}
 
+	/**
+	 * Notifies the renderer of the lazy mode and the server (if it has been started) that a build has finished.
+	 *
+	 * @param buildTime The build time.
+	 */
+
+	private void onBuildFinished(final long buildTime) {
+		// The build may have reloaded the project.
+		if(renderer != null) {
+			renderer.setProject(command.getProject());
+		}
+		if(server != null) {
+			server.setProject(command.getProject());
+			server.setLastBuild(buildTime);
+		}
+	}
+
+	/**
+	 * Returns the path of the specified file (relative to the project directory) if changing it requires a rebuild.
+	 *
+	 * @param file The file.
+	 *
+	 * @return The relative path, or null if no rebuild is required.
+	 */
+
+	private String getRebuildPath(final File file) {
+		final String path = file.getPath().replace(command.getProject().getDirectory().getPath(), "");
+		if(path.length() < 2) {
+			return null;
+		}
+
+		final String relativePath = path.substring(1);
+		for(final String toRebuild : Constants.SERVE_REBUILD_PREFIX) {
+			if(relativePath.startsWith(toRebuild)) {
+				return relativePath;
+			}
+		}
+		return null;
+	}
+
 	/**
 	 * Command arguments.
 	 */
@@ -249,6 +393,18 @@ public class ServeCommand extends Command<ServeCommand.Arguments> {
 		@Parameter(names = {"-manualRebuild", "-mr"}, description = "Toggles the manual rebuild.")
 		public boolean manualRebuild = true;
 
+		@Parameter(names = {"-rebuildDelay", "-rd"}, description = "Sets the delay (in milliseconds) without any file change to wait before rebuilding.")
+		public long rebuildDelay = Constants.DEFAULT_REBUILD_DELAY;
+
+		@Parameter(names = {"-markdownCacheSize", "-mcs"}, description = "Sets the size (in characters) of the in-memory cache of rendered Markdown pages (0 to disable it).")
+		public long markdownCacheSize = Constants.DEFAULT_MARKDOWN_CACHE_SIZE;
+
+		@Parameter(names = {"-memoryOutputSize", "-mos"}, description = "Keeps up to this number of bytes of built files in memory instead of writing them to the disk (0 to write all of them to the disk).")
+		public long memoryOutputSize = 0L;
+
+		@Parameter(names = {"-lazy", "-l"}, description = "Only renders pages when they are requested instead of building all of them first (the search page is not generated).")
+		public boolean lazy = false;
+
 	}
 	
 }
\ No newline at end of file
@@ -0,0 +1,316 @@
+package fr.skyost.skydocs.search;
+
+import fr.skyost.skydocs.BuildOutput;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Builds a compact full-text index (term to posting lists with positions) that is queried by the search page.
+ * <p>
+ * Every integer is an unsigned LEB128 varint and every string is its UTF-8 length followed by its UTF-8 bytes. The file contains :
+ * <ol>
+ *     <li>The magic bytes "SDFT" and the format version.</li>
+ *     <li>The number of fields, then their names.</li>
+ *     <li>The number of documents, then for each document : its reference and the length of each field (in terms).</li>
+ *     <li>The number of terms, then for each term (sorted) : the number of UTF-8 bytes shared with the previous term, the remaining bytes (as a string),
+ *     the length of its postings (in bytes) and its postings.</li>
+ * </ol>
+ * Postings start with the number of documents containing the term, followed for each document by : the document delta,
+ * the term frequency in each field and the positions deltas in each field.
+ * The postings length allows the search page to read the dictionary without decoding every posting.
+ */
+
+public class FullTextIndexBuilder {
+
+	/**
+	 * The magic bytes.
+	 */
+
+	private static final byte[] MAGIC = "SDFT".getBytes(StandardCharsets.US_ASCII);
+
+	/**
+	 * The format version.
+	 */
+
+	public static final int VERSION = 2;
+
+	/**
+	 * The indexed fields.
+	 */
+
+	private final String[] fields;
+
+	/**
+	 * The encoded postings of each term.
+	 */
+
+	private final Map<String, Postings> postings = new HashMap<>();
+
+	/**
+	 * The encoded documents (reference and fields lengths).
+	 */
+
+	private final VarIntBuffer documents = new VarIntBuffer();
+
+	/**
+	 * The number of added documents.
+	 */
+
+	private int documentCount;
+
+	/**
+	 * Creates a new FullTextIndexBuilder instance.
+	 *
+	 * @param fields The indexed fields.
+	 */
+
+	public FullTextIndexBuilder(final String... fields) {
+		this.fields = fields;
+	}
+
+	/**
+	 * Adds a document to the index. Documents are numbered in insertion order.
+	 *
+	 * @param ref The document reference.
+	 * @param values The value of each field (in the same order as the fields).
+	 */
+
+	public final void add(final String ref, final String... values) {
+		documents.writeString(ref.getBytes(StandardCharsets.UTF_8), 0);
+
+		final Map<String, Occurrences> occurrences = new LinkedHashMap<>();
+		for(int i = 0; i != fields.length; i++) {
+			final List<String> terms = tokenize(values[i]);
+			for(int j = 0; j != terms.size(); j++) {
+				occurrences.computeIfAbsent(terms.get(j), term -> new Occurrences(fields.length)).positions.get(i).add(j);
+			}
+			documents.writeVarInt(terms.size());
+		}
+
+		for(final Map.Entry<String, Occurrences> entry : occurrences.entrySet()) {
+			postings.computeIfAbsent(entry.getKey(), term -> new Postings()).add(documentCount, entry.getValue());
+		}
+		documentCount++;
+	}
+
+	/**
+	 * Returns the number of added documents.
+	 *
+	 * @return The number of added documents.
+	 */
+
+	public final int getDocumentCount() {
+		return documentCount;
+	}
+
+	/**
+	 * Writes the index.
+	 *
+	 * @param output The output stream.
+	 *
+	 * @throws IOException If any exception occurs while writing the index.
+	 */
+
+	public final void writeTo(final OutputStream output) throws IOException {
+		final VarIntBuffer buffer = new VarIntBuffer();
+		buffer.write(MAGIC, 0, MAGIC.length);
+		buffer.writeVarInt(VERSION);
+
+		buffer.writeVarInt(fields.length);
+		for(final String field : fields) {
+			buffer.writeString(field.getBytes(StandardCharsets.UTF_8), 0);
+		}
+		buffer.writeVarInt(documentCount);
+		buffer.writeTo(output);
+		documents.writeTo(output);
+
+		final List<String> terms = new ArrayList<>(postings.keySet());
+		Collections.sort(terms);
+		buffer.reset();
+		buffer.writeVarInt(terms.size());
+		buffer.writeTo(output);
+
+		byte[] previous = new byte[0];
+		for(final String term : terms) {
+			final byte[] bytes = term.getBytes(StandardCharsets.UTF_8);
+			int shared = 0;
+			while(shared < bytes.length && shared < previous.length && bytes[shared] == previous[shared]) {
+				shared++;
+			}
+			final Postings postings = this.postings.get(term);
+
+			buffer.reset();
+			buffer.writeVarInt(shared);
+			buffer.writeString(bytes, shared);
+			buffer.writeVarInt(VarIntBuffer.varIntSize(postings.documents) + postings.size());
+			buffer.writeVarInt(postings.documents);
+			buffer.writeTo(output);
+			postings.writeTo(output);
+			previous = bytes;
+		}
+	}
+
+	/**
+	 * Writes the index to a file.
+	 *
+	 * @param file The file.
+	 * @param buildOutput The build output.
+	 *
+	 * @throws IOException If any exception occurs while writing the index.
+	 */
+
+	public final void save(final File file, final BuildOutput buildOutput) throws IOException {
+		try(final OutputStream output = new BufferedOutputStream(buildOutput.newOutputStream(file))) {
+			writeTo(output);
+		}
+	}
+
+	/**
+	 * Splits a text into lower case terms (sequences of letters, marks and numbers).
+	 * The search page splits queries the same way ("/[\p{L}\p{M}\p{N}]+/gu").
+	 *
+	 * @param text The text.
+	 *
+	 * @return The terms (in order, with duplicates).
+	 */
+
+	public static List<String> tokenize(final String text) {
+		final List<String> terms = new ArrayList<>();
+		if(text == null) {
+			return terms;
+		}
+
+		final String string = text.toLowerCase(Locale.ROOT);
+		int start = -1;
+		for(int i = 0; i < string.length(); ) {
+			final int codePoint = string.codePointAt(i);
+			if(isWordCharacter(codePoint)) {
+				if(start == -1) {
+					start = i;
+				}
+			}
+			else if(start != -1) {
+				terms.add(string.substring(start, i));
+				start = -1;
+			}
+			i += Character.charCount(codePoint);
+		}
+		if(start != -1) {
+			terms.add(string.substring(start));
+		}
+		return terms;
+	}
+
+	/**
+	 * Checks whether a code point is part of a term (letters, marks and numbers).
+	 *
+	 * @param codePoint The code point.
+	 *
+	 * @return Whether the code point is part of a term.
+	 */
+
+	private static boolean isWordCharacter(final int codePoint) {
+		switch(Character.getType(codePoint)) {
+		case Character.UPPERCASE_LETTER:
+		case Character.LOWERCASE_LETTER:
+		case Character.TITLECASE_LETTER:
+		case Character.MODIFIER_LETTER:
+		case Character.OTHER_LETTER:
+		case Character.NON_SPACING_MARK:
+		case Character.ENCLOSING_MARK:
+		case Character.COMBINING_SPACING_MARK:
+		case Character.DECIMAL_DIGIT_NUMBER:
+		case Character.LETTER_NUMBER:
+		case Character.OTHER_NUMBER:
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Represents the positions of a term in a document.
+	 */
+
+	private static class Occurrences {
+
+		/**
+		 * The positions in each field.
+		 */
+
+		private final List<List<Integer>> positions;
+
+		/**
+		 * Creates a new Occurrences instance.
+		 *
+		 * @param fields The number of fields.
+		 */
+
+		private Occurrences(final int fields) {
+			positions = new ArrayList<>(fields);
+			for(int i = 0; i != fields; i++) {
+				positions.add(new ArrayList<>(2));
+			}
+		}
+
+	}
+
+	/**
+	 * Represents the encoded postings of a term (without the number of documents, which is written first).
+	 */
+
+	private static class Postings extends VarIntBuffer {
+
+		/**
+		 * The number of documents containing the term.
+		 */
+
+		private int documents;
+
+		/**
+		 * The last document containing the term.
+		 */
+
+		private int lastDocument;
+
+		/**
+		 * Appends a document (documents must be added in increasing order).
+		 *
+		 * @param document The document.
+		 * @param occurrences The term positions in the document.
+		 */
+
+		private void add(final int document, final Occurrences occurrences) {
+			writeVarInt(document - lastDocument);
+			for(final List<Integer> positions : occurrences.positions) {
+				writeVarInt(positions.size());
+			}
+			for(final List<Integer> positions : occurrences.positions) {
+				writePositions(positions);
+			}
+			lastDocument = document;
+			documents++;
+		}
+
+		/**
+		 * Writes delta-encoded positions.
+		 *
+		 * @param positions The positions (in increasing order).
+		 */
+
+		private void writePositions(final List<Integer> positions) {
+			int last = 0;
+			for(final int position : positions) {
+				writeVarInt(position - last);
+				last = position;
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,350 @@
+package fr.skyost.skydocs.search;
+
+import com.eclipsesource.json.Json;
+import com.eclipsesource.json.JsonArray;
+import com.eclipsesource.json.JsonObject;
+import fr.skyost.skydocs.BuildOutput;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Builds a lunr index (the same one "lunr.Builder" 2.1.4 would build in the browser) and serializes it,
+ * so that the search page only has to load it with "lunr.Index.load".
+ */
+
+public class LunrIndexBuilder {
+
+	/**
+	 * The lunr version the serialized index is compatible with.
+	 */
+
+	public static final String LUNR_VERSION = "2.1.4";
+
+	/**
+	 * The BM25 "k1" parameter (term frequency saturation).
+	 */
+
+	private static final double K1 = 1.2d;
+
+	/**
+	 * The BM25 "b" parameter (field length normalisation).
+	 */
+
+	private static final double B = 0.75d;
+
+	/**
+	 * The pipeline applied to every field.
+	 */
+
+	private final LunrPipeline pipeline;
+
+	/**
+	 * The indexed fields.
+	 */
+
+	private final String[] fields;
+
+	/**
+	 * The inverted index (term to posting).
+	 */
+
+	private final Map<String, Posting> invertedIndex = new HashMap<>();
+
+	/**
+	 * The term frequencies of each field of each document (in insertion order).
+	 */
+
+	private final List<FieldTerms> fieldTerms = new ArrayList<>();
+
+	/**
+	 * The total length of each field.
+	 */
+
+	private final long[] fieldLengths;
+
+	/**
+	 * The number of added documents.
+	 */
+
+	private int documentCount;
+
+	/**
+	 * Creates a new LunrIndexBuilder instance.
+	 *
+	 * @param pipeline The pipeline applied to every field.
+	 * @param fields The indexed fields.
+	 */
+
+	public LunrIndexBuilder(final LunrPipeline pipeline, final String... fields) {
+		this.pipeline = pipeline;
+		this.fields = fields;
+		this.fieldLengths = new long[fields.length];
+	}
+
+	/**
+	 * Adds a document to the index.
+	 *
+	 * @param ref The document reference (returned by lunr when the document matches a query).
+	 * @param document The document (missing fields are indexed as empty strings).
+	 */
+
+	public final void add(final String ref, final JsonObject document) {
+		for(int i = 0; i != fields.length; i++) {
+			final String field = fields[i];
+			final List<String> terms = pipeline.run(document.getString(field, ""));
+			final FieldTerms frequencies = new FieldTerms(field + "/" + ref, i, terms.size());
+			for(final String term : terms) {
+				if(frequencies.add(term) != 1) {
+					continue;
+				}
+
+				Posting posting = invertedIndex.get(term);
+				if(posting == null) {
+					posting = new Posting(invertedIndex.size(), fields.length);
+					invertedIndex.put(term, posting);
+				}
+				posting.refs.get(i).add(ref);
+			}
+			fieldTerms.add(frequencies);
+			fieldLengths[i] += terms.size();
+		}
+		documentCount++;
+	}
+
+	/**
+	 * Returns the number of added documents.
+	 *
+	 * @return The number of added documents.
+	 */
+
+	public final int getDocumentCount() {
+		return documentCount;
+	}
+
+	/**
+	 * Writes the serialized index.
+	 *
+	 * @param writer The writer.
+	 *
+	 * @throws IOException If any exception occurs while writing the index.
+	 */
+
+	public final void writeTo(final Writer writer) throws IOException {
+		final JsonArray fields = new JsonArray();
+		for(final String field : this.fields) {
+			fields.add(field);
+		}
+
+		writer.write("{\"version\":");
+		Json.value(LUNR_VERSION).writeTo(writer);
+		writer.write(",\"fields\":");
+		fields.writeTo(writer);
+
+		writer.write(",\"fieldVectors\":[");
+		final Map<String, Double> idfCache = new HashMap<>();
+		for(int i = 0; i != fieldTerms.size(); i++) {
+			if(i != 0) {
+				writer.write(',');
+			}
+			createFieldVector(fieldTerms.get(i), idfCache).writeTo(writer);
+		}
+
+		writer.write("],\"invertedIndex\":[");
+		final List<String> terms = new ArrayList<>(invertedIndex.keySet());
+		Collections.sort(terms);
+		for(int i = 0; i != terms.size(); i++) {
+			if(i != 0) {
+				writer.write(',');
+			}
+			final String term = terms.get(i);
+			Json.array().add(term).add(invertedIndex.get(term).toJSON(this.fields)).writeTo(writer);
+		}
+
+		writer.write("],\"pipeline\":");
+		pipeline.getSearchPipeline().writeTo(writer);
+		writer.write('}');
+	}
+
+	/**
+	 * Writes the serialized index to a file.
+	 *
+	 * @param file The file.
+	 * @param output The build output.
+	 *
+	 * @throws IOException If any exception occurs while writing the index.
+	 */
+
+	public final void save(final File file, final BuildOutput output) throws IOException {
+		try(final Writer writer = new BufferedWriter(new OutputStreamWriter(output.newOutputStream(file), StandardCharsets.UTF_8))) {
+			writeTo(writer);
+		}
+	}
+
+	/**
+	 * Creates the serialized vector of a document field (pairs of term index and BM25 score, sorted by term index).
+	 *
+	 * @param frequencies The term frequencies of the field.
+	 * @param idfCache The inverse document frequency of the terms that have already been scored.
+	 *
+	 * @return The serialized vector.
+	 */
+
+	private JsonArray createFieldVector(final FieldTerms frequencies, final Map<String, Double> idfCache) {
+		final double averageLength = (double)fieldLengths[frequencies.field] / documentCount;
+		final double[][] elements = new double[frequencies.terms.size()][];
+		int i = 0;
+		for(final Map.Entry<String, Integer> entry : frequencies.terms.entrySet()) {
+			final Posting posting = invertedIndex.get(entry.getKey());
+			final double idf = idfCache.computeIfAbsent(entry.getKey(), term -> posting.idf(documentCount));
+			final int tf = entry.getValue();
+
+			// Same operations (and the same order) as lunr, so that both scores are equal.
+			final double score = idf * ((K1 + 1) * tf) / (K1 * (1 - B + B * (frequencies.length / averageLength)) + tf);
+			elements[i++] = new double[]{posting.index, Math.round(score * 1000) / 1000d};
+		}
+		Arrays.sort(elements, Comparator.comparingDouble(element -> element[0]));
+
+		final JsonArray vector = new JsonArray();
+		for(final double[] element : elements) {
+			vector.add((int)element[0]).add(element[1]);
+		}
+		return Json.array().add(frequencies.ref).add(vector);
+	}
+
+	/**
+	 * Represents the occurrences of a term in the index.
+	 */
+
+	private static class Posting {
+
+		/**
+		 * The term index (used in field vectors).
+		 */
+
+		private final int index;
+
+		/**
+		 * The documents that contain the term, for each field.
+		 */
+
+		private final List<List<String>> refs;
+
+		/**
+		 * Creates a new Posting instance.
+		 *
+		 * @param index The term index.
+		 * @param fields The number of fields.
+		 */
+
+		private Posting(final int index, final int fields) {
+			this.index = index;
+			this.refs = new ArrayList<>(fields);
+			for(int i = 0; i != fields; i++) {
+				refs.add(new ArrayList<>());
+			}
+		}
+
+		/**
+		 * Calculates the inverse document frequency of the term ("lunr.idf").
+		 *
+		 * @param documentCount The number of documents in the index.
+		 *
+		 * @return The inverse document frequency.
+		 */
+
+		private double idf(final int documentCount) {
+			int documentsWithTerm = 0;
+			for(final List<String> refs : this.refs) {
+				documentsWithTerm += refs.size();
+			}
+			final double x = (documentCount - documentsWithTerm + 0.5d) / (documentsWithTerm + 0.5d);
+			return StrictMath.log(1 + Math.abs(x));
+		}
+
+		/**
+		 * Serializes this posting.
+		 *
+		 * @param fields The field names.
+		 *
+		 * @return The serialized posting.
+		 */
+
+		private JsonObject toJSON(final String[] fields) {
+			final JsonObject posting = Json.object().add("_index", index);
+			for(int i = 0; i != fields.length; i++) {
+				final JsonObject documents = new JsonObject();
+				for(final String ref : refs.get(i)) {
+					documents.add(ref, new JsonObject());
+				}
+				posting.add(fields[i], documents);
+			}
+			return posting;
+		}
+
+	}
+
+	/**
+	 * Represents the term frequencies of a document field.
+	 */
+
+	private static class FieldTerms {
+
+		/**
+		 * The field reference ("field/document").
+		 */
+
+		private final String ref;
+
+		/**
+		 * The field index.
+		 */
+
+		private final int field;
+
+		/**
+		 * The number of terms in the field.
+		 */
+
+		private final int length;
+
+		/**
+		 * The frequency of each term.
+		 */
+
+		private final Map<String, Integer> terms = new LinkedHashMap<>();
+
+		/**
+		 * Creates a new FieldTerms instance.
+		 *
+		 * @param ref The field reference.
+		 * @param field The field index.
+		 * @param length The number of terms in the field.
+		 */
+
+		private FieldTerms(final String ref, final int field, final int length) {
+			this.ref = ref;
+			this.field = field;
+			this.length = length;
+		}
+
+		/**
+		 * Adds an occurrence of a term.
+		 *
+		 * @param term The term.
+		 *
+		 * @return The term frequency.
+		 */
+
+		private int add(final String term) {
+			return terms.merge(term, 1, Integer::sum);
+		}
+
+	}
+
+}
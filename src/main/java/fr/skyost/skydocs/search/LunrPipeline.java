@@ -0,0 +1,206 @@
+package fr.skyost.skydocs.search;
+
+import com.eclipsesource.json.JsonArray;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * The text processing applied to page fields before they are added to a prebuilt lunr index.
+ * Tokens are produced exactly like "lunr.tokenizer" does it, so that the index can be loaded and queried by lunr in the browser.
+ */
+
+public enum LunrPipeline {
+
+	/**
+	 * The default lunr pipeline ("trimmer", "stopWordFilter" and "stemmer"), used for English pages.
+	 * Queries are stemmed in the browser too.
+	 */
+
+	ENGLISH(Pattern.compile("^\\W+|\\W+$"), "stemmer") {
+
+		@Override
+		protected final String process(final String token) {
+			final String trimmed = trim(token);
+			return trimmed.isEmpty() || STOP_WORDS.contains(trimmed) ? null : PorterStemmer.stem(trimmed);
+		}
+
+	},
+
+	/**
+	 * The pipeline used for every other language : tokens are only trimmed (the lunr trimmer only knows ASCII letters so a Unicode aware one is used).
+	 * Stemmers and stop words of other languages are not available in the browser, so queries are not processed.
+	 */
+
+	GENERIC(Pattern.compile("^[^\\p{L}\\p{N}_]+|[^\\p{L}\\p{N}_]+$")) {
+
+		@Override
+		protected final String process(final String token) {
+			return trim(token);
+		}
+
+	};
+
+	/**
+	 * lunr English stop words ("lunr.stopWordFilter").
+	 */
+
+	private static final Set<String> STOP_WORDS = new HashSet<>(Arrays.asList(
+			"a", "able", "about", "across", "after", "all", "almost", "also", "am", "among", "an", "and", "any", "are", "as", "at",
+			"be", "because", "been", "but", "by", "can", "cannot", "could", "dear", "did", "do", "does", "either", "else", "ever", "every",
+			"for", "from", "get", "got", "had", "has", "have", "he", "her", "hers", "him", "his", "how", "however", "i", "if", "in", "into",
+			"is", "it", "its", "just", "least", "let", "like", "likely", "may", "me", "might", "most", "must", "my", "neither", "no", "nor",
+			"not", "of", "off", "often", "on", "only", "or", "other", "our", "own", "rather", "said", "say", "says", "she", "should", "since",
+			"so", "some", "than", "that", "the", "their", "them", "then", "there", "these", "they", "this", "tis", "to", "too", "twas", "us",
+			"wants", "was", "we", "were", "what", "when", "where", "which", "while", "who", "whom", "why", "will", "with", "would", "yet",
+			"you", "your"
+	));
+
+	/**
+	 * Matches the characters trimmed at both ends of a token.
+	 */
+
+	private final Pattern trimmer;
+
+	/**
+	 * The names of the functions that lunr must apply to queries.
+	 */
+
+	private final String[] searchPipeline;
+
+	/**
+	 * Creates a new LunrPipeline instance.
+	 *
+	 * @param trimmer Matches the characters trimmed at both ends of a token.
+	 * @param searchPipeline The names of the functions that lunr must apply to queries.
+	 */
+
+	LunrPipeline(final Pattern trimmer, final String... searchPipeline) {
+		this.trimmer = trimmer;
+		this.searchPipeline = searchPipeline;
+	}
+
+	/**
+	 * Returns the pipeline of the specified language.
+	 *
+	 * @param language The language.
+	 *
+	 * @return The pipeline.
+	 */
+
+	public static LunrPipeline forLanguage(final String language) {
+		if(language == null) {
+			return GENERIC;
+		}
+		final String english = Locale.ENGLISH.getLanguage();
+		final String lowerCase = language.toLowerCase(Locale.ROOT);
+		return lowerCase.equals(english) || lowerCase.startsWith(english + "-") || lowerCase.startsWith(english + "_") ? ENGLISH : GENERIC;
+	}
+
+	/**
+	 * Returns the serialized search pipeline (stored in the index and loaded by lunr).
+	 *
+	 * @return The serialized search pipeline.
+	 */
+
+	public final JsonArray getSearchPipeline() {
+		final JsonArray pipeline = new JsonArray();
+		for(final String function : searchPipeline) {
+			pipeline.add(function);
+		}
+		return pipeline;
+	}
+
+	/**
+	 * Splits a text into tokens and runs the pipeline on each of them.
+	 *
+	 * @param text The text.
+	 *
+	 * @return The terms (in order, with duplicates).
+	 */
+
+	public final List<String> run(final String text) {
+		final List<String> terms = new ArrayList<>();
+		if(text == null) {
+			return terms;
+		}
+
+		final String string = text.toLowerCase(Locale.ROOT);
+		int start = 0;
+		for(int i = 0; i <= string.length(); i++) {
+			if(i != string.length() && !isSeparator(string.charAt(i))) {
+				continue;
+			}
+			if(i > start) {
+				final String term = process(string.substring(start, i));
+				// As in lunr, empty terms are dropped.
+				if(term != null && !term.isEmpty()) {
+					terms.add(term);
+				}
+			}
+			start = i + 1;
+		}
+		return terms;
+	}
+
+	/**
+	 * Processes a token.
+	 *
+	 * @param token The token (lower case, not empty).
+	 *
+	 * @return The term, or null (or an empty string) if the token should not be indexed.
+	 */
+
+	protected abstract String process(final String token);
+
+	/**
+	 * Removes the characters that are not part of a word at both ends of a token.
+	 * The result may be empty (in that case, the token is not indexed).
+	 *
+	 * @param token The token.
+	 *
+	 * @return The trimmed token.
+	 */
+
+	protected final String trim(final String token) {
+		return trimmer.matcher(token).replaceAll("");
+	}
+
+	/**
+	 * Checks whether a character separates two tokens ("lunr.tokenizer.separator").
+	 *
+	 * @param character The character.
+	 *
+	 * @return Whether the character is a separator.
+	 */
+
+	private static boolean isSeparator(final char character) {
+		return character == '-' || isWhitespace(character);
+	}
+
+	/**
+	 * Checks whether a character is matched by "\s" in JavaScript.
+	 *
+	 * @param character The character.
+	 *
+	 * @return Whether the character is a JavaScript whitespace.
+	 */
+
+	private static boolean isWhitespace(final char character) {
+		switch(character) {
+		case ' ':
+		case '\u00a0':
+		case '\u1680':
+		case '\u2028':
+		case '\u2029':
+		case '\u202f':
+		case '\u205f':
+		case '\u3000':
+		case '\ufeff':
+			return true;
+		default:
+			return (character >= '\t' && character <= '\r') || (character >= '\u2000' && character <= '\u200a');
+		}
+	}
+
+}
@@ -0,0 +1,322 @@
+package fr.skyost.skydocs.search;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The Porter stemmer used by lunr (same regular expressions and same steps as "lunr.stemmer"),
+ * so that terms stemmed at build time match the query terms stemmed in the browser.
+ */
+
+public class PorterStemmer {
+
+	/**
+	 * Step 2 suffixes.
+	 */
+
+	private static final Map<String, String> STEP_2 = new HashMap<>();
+
+	/**
+	 * Step 3 suffixes.
+	 */
+
+	private static final Map<String, String> STEP_3 = new HashMap<>();
+
+	/**
+	 * A consonant.
+	 */
+
+	private static final String C = "[^aeiou]";
+
+	/**
+	 * A vowel.
+	 */
+
+	private static final String V = "[aeiouy]";
+
+	/**
+	 * A consonant sequence.
+	 */
+
+	private static final String CS = C + "[^aeiouy]*";
+
+	/**
+	 * A vowel sequence.
+	 */
+
+	private static final String VS = V + "[aeiou]*";
+
+	/**
+	 * Matches [C]VC... (m > 0).
+	 */
+
+	private static final Pattern MGR0 = compile("^(" + CS + ")?" + VS + CS);
+
+	/**
+	 * Matches [C]VC[V] (m = 1).
+	 */
+
+	private static final Pattern MEQ1 = compile("^(" + CS + ")?" + VS + CS + "(" + VS + ")?$");
+
+	/**
+	 * Matches [C]VCVC... (m > 1).
+	 */
+
+	private static final Pattern MGR1 = compile("^(" + CS + ")?" + VS + CS + VS + CS);
+
+	/**
+	 * Matches a stem that contains a vowel.
+	 */
+
+	private static final Pattern S_V = compile("^(" + CS + ")?" + V);
+
+	/**
+	 * Step 1a pattern.
+	 */
+
+	private static final Pattern RE_1A = compile("^(.+?)(ss|i)es$");
+
+	/**
+	 * Step 1a pattern (second form).
+	 */
+
+	private static final Pattern RE2_1A = compile("^(.+?)([^s])s$");
+
+	/**
+	 * Step 1b pattern.
+	 */
+
+	private static final Pattern RE_1B = compile("^(.+?)eed$");
+
+	/**
+	 * Step 1b pattern (second form).
+	 */
+
+	private static final Pattern RE2_1B = compile("^(.+?)(ed|ing)$");
+
+	/**
+	 * Step 1b suffixes that need an additional "e".
+	 */
+
+	private static final Pattern RE2_1B_2 = compile("(at|bl|iz)$");
+
+	/**
+	 * Step 1b double consonant.
+	 */
+
+	private static final Pattern RE3_1B_2 = compile("([^aeiouylsz])\\1$");
+
+	/**
+	 * Step 1b short stem (CVC).
+	 */
+
+	private static final Pattern RE4_1B_2 = compile("^" + CS + V + "[^aeiouwxy]$");
+
+	/**
+	 * Step 1c pattern.
+	 */
+
+	private static final Pattern RE_1C = compile("^(.+?[^aeiou])y$");
+
+	/**
+	 * Step 2 pattern.
+	 */
+
+	private static final Pattern RE_2 = compile("^(.+?)(ational|tional|enci|anci|izer|bli|alli|entli|eli|ousli|ization|ation|ator|alism|iveness|fulness|ousness|aliti|iviti|biliti|logi)$");
+
+	/**
+	 * Step 3 pattern.
+	 */
+
+	private static final Pattern RE_3 = compile("^(.+?)(icate|ative|alize|iciti|ical|ful|ness)$");
+
+	/**
+	 * Step 4 pattern.
+	 */
+
+	private static final Pattern RE_4 = compile("^(.+?)(al|ance|ence|er|ic|able|ible|ant|ement|ment|ent|ou|ism|ate|iti|ous|ive|ize)$");
+
+	/**
+	 * Step 4 pattern (second form).
+	 */
+
+	private static final Pattern RE2_4 = compile("^(.+?)(s|t)(ion)$");
+
+	/**
+	 * Step 5 pattern.
+	 */
+
+	private static final Pattern RE_5 = compile("^(.+?)e$");
+
+	/**
+	 * Step 5 double "l".
+	 */
+
+	private static final Pattern RE_5_1 = compile("ll$");
+
+	/**
+	 * Step 5 short stem (CVC).
+	 */
+
+	private static final Pattern RE3_5 = compile("^" + CS + V + "[^aeiouwxy]$");
+
+	static {
+		STEP_2.put("ational", "ate");
+		STEP_2.put("tional", "tion");
+		STEP_2.put("enci", "ence");
+		STEP_2.put("anci", "ance");
+		STEP_2.put("izer", "ize");
+		STEP_2.put("bli", "ble");
+		STEP_2.put("alli", "al");
+		STEP_2.put("entli", "ent");
+		STEP_2.put("eli", "e");
+		STEP_2.put("ousli", "ous");
+		STEP_2.put("ization", "ize");
+		STEP_2.put("ation", "ate");
+		STEP_2.put("ator", "ate");
+		STEP_2.put("alism", "al");
+		STEP_2.put("iveness", "ive");
+		STEP_2.put("fulness", "ful");
+		STEP_2.put("ousness", "ous");
+		STEP_2.put("aliti", "al");
+		STEP_2.put("iviti", "ive");
+		STEP_2.put("biliti", "ble");
+		STEP_2.put("logi", "log");
+
+		STEP_3.put("icate", "ic");
+		STEP_3.put("ative", "");
+		STEP_3.put("alize", "al");
+		STEP_3.put("iciti", "ic");
+		STEP_3.put("ical", "ic");
+		STEP_3.put("ful", "");
+		STEP_3.put("ness", "");
+	}
+
+	/**
+	 * Stems a word.
+	 *
+	 * @param word The word (lower case).
+	 *
+	 * @return The stem.
+	 */
+
+	public static String stem(String word) {
+		if(word.length() < 3) {
+			return word;
+		}
+
+		final boolean firstY = word.charAt(0) == 'y';
+		if(firstY) {
+			word = "Y" + word.substring(1);
+		}
+
+		// Step 1a.
+		Matcher matcher = RE_1A.matcher(word);
+		if(matcher.find()) {
+			word = matcher.group(1) + matcher.group(2);
+		}
+		else if((matcher = RE2_1A.matcher(word)).find()) {
+			word = matcher.group(1) + matcher.group(2);
+		}
+
+		// Step 1b.
+		if((matcher = RE_1B.matcher(word)).find()) {
+			if(MGR0.matcher(matcher.group(1)).find()) {
+				word = removeLastCharacter(word);
+			}
+		}
+		else if((matcher = RE2_1B.matcher(word)).find()) {
+			final String stem = matcher.group(1);
+			if(S_V.matcher(stem).find()) {
+				word = stem;
+				if(RE2_1B_2.matcher(word).find()) {
+					word = word + "e";
+				}
+				else if(RE3_1B_2.matcher(word).find()) {
+					word = removeLastCharacter(word);
+				}
+				else if(RE4_1B_2.matcher(word).find()) {
+					word = word + "e";
+				}
+			}
+		}
+
+		// Step 1c.
+		if((matcher = RE_1C.matcher(word)).find()) {
+			word = matcher.group(1) + "i";
+		}
+
+		// Step 2.
+		if((matcher = RE_2.matcher(word)).find()) {
+			final String stem = matcher.group(1);
+			if(MGR0.matcher(stem).find()) {
+				word = stem + STEP_2.get(matcher.group(2));
+			}
+		}
+
+		// Step 3.
+		if((matcher = RE_3.matcher(word)).find()) {
+			final String stem = matcher.group(1);
+			if(MGR0.matcher(stem).find()) {
+				word = stem + STEP_3.get(matcher.group(2));
+			}
+		}
+
+		// Step 4.
+		if((matcher = RE_4.matcher(word)).find()) {
+			final String stem = matcher.group(1);
+			if(MGR1.matcher(stem).find()) {
+				word = stem;
+			}
+		}
+		else if((matcher = RE2_4.matcher(word)).find()) {
+			final String stem = matcher.group(1) + matcher.group(2);
+			if(MGR1.matcher(stem).find()) {
+				word = stem;
+			}
+		}
+
+		// Step 5.
+		if((matcher = RE_5.matcher(word)).find()) {
+			final String stem = matcher.group(1);
+			if(MGR1.matcher(stem).find() || (MEQ1.matcher(stem).find() && !RE3_5.matcher(stem).find())) {
+				word = stem;
+			}
+		}
+		if(RE_5_1.matcher(word).find() && MGR1.matcher(word).find()) {
+			word = removeLastCharacter(word);
+		}
+
+		if(firstY) {
+			word = "y" + word.substring(1);
+		}
+		return word;
+	}
+
+	/**
+	 * Compiles a pattern (any character may be matched by ".", as in JavaScript for the characters that can appear in a token).
+	 *
+	 * @param regex The regular expression.
+	 *
+	 * @return The pattern.
+	 */
+
+	private static Pattern compile(final String regex) {
+		return Pattern.compile(regex, Pattern.DOTALL | Pattern.UNIX_LINES);
+	}
+
+	/**
+	 * Removes the last character of a word.
+	 *
+	 * @param word The word.
+	 *
+	 * @return The word without its last character.
+	 */
+
+	private static String removeLastCharacter(final String word) {
+		return word.substring(0, word.length() - 1);
+	}
+
+}
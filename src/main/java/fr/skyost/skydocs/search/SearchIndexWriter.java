@@ -0,0 +1,116 @@
+package fr.skyost.skydocs.search;
+
+import com.eclipsesource.json.Json;
+import fr.skyost.skydocs.BuildOutput;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streams the search index (a JSON object that maps page identifiers to their search entry) to a file.
+ * The file is only created once the first entry is added.
+ */
+
+public class SearchIndexWriter implements Closeable {
+
+	/**
+	 * The index file.
+	 */
+
+	private final File file;
+
+	/**
+	 * The build output.
+	 */
+
+	private final BuildOutput output;
+
+	/**
+	 * The writer (null if no entry has been added yet or if this writer is closed).
+	 */
+
+	private Writer writer;
+
+	/**
+	 * The number of written entries.
+	 */
+
+	private int count;
+
+	/**
+	 * Creates a new SearchIndexWriter instance.
+	 *
+	 * @param file The index file.
+	 * @param output The build output.
+	 */
+
+	public SearchIndexWriter(final File file, final BuildOutput output) {
+		this.file = file;
+		this.output = output;
+	}
+
+	/**
+	 * Adds an entry to the index.
+	 *
+	 * @param id The page identifier.
+	 * @param entry The search entry (a JSON object).
+	 *
+	 * @throws IOException If any exception occurs while writing the entry.
+	 */
+
+	public final void add(final String id, final String entry) throws IOException {
+		if(writer == null) {
+			writer = new BufferedWriter(new OutputStreamWriter(output.newOutputStream(file), StandardCharsets.UTF_8));
+			writer.write('{');
+		}
+		else {
+			writer.write(',');
+		}
+
+		Json.value(id).writeTo(writer);
+		writer.write(':');
+		writer.write(entry);
+		count++;
+	}
+
+	/**
+	 * Returns the index file.
+	 *
+	 * @return The index file.
+	 */
+
+	public final File getFile() {
+		return file;
+	}
+
+	/**
+	 * Returns the number of written entries.
+	 *
+	 * @return The number of written entries.
+	 */
+
+	public final int getCount() {
+		return count;
+	}
+
+	@Override
+	public final void close() throws IOException {
+		if(writer == null) {
+			return;
+		}
+
+		try {
+			writer.write('}');
+		}
+		finally {
+			writer.close();
+			writer = null;
+		}
+	}
+
+}
@@ -0,0 +1,323 @@
+package fr.skyost.skydocs.search;
+
+import com.eclipsesource.json.Json;
+import com.eclipsesource.json.JsonArray;
+import com.eclipsesource.json.JsonObject;
+import fr.skyost.skydocs.BuildOutput;
+import fr.skyost.skydocs.Constants;
+import fr.skyost.skydocs.DocsPage;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Splits the search index into shards : one per language and, optionally, one per top-level directory of each language.
+ * The search page only downloads the shards of the current language.
+ * Each shard has a file that contains the search entries (displayed in the results) and a full-text index (or a prebuilt lunr index).
+ */
+
+public class SearchShards implements Closeable {
+
+	/**
+	 * The search entry key of the page headings text. It is indexed but not written with the other entry fields.
+	 */
+
+	public static final String ENTRY_HEADINGS = "headings";
+
+	/**
+	 * The search entry key of the page body text. It is indexed but not written with the other entry fields.
+	 */
+
+	public static final String ENTRY_TEXT = "text";
+
+	/**
+	 * The directory where shards are written.
+	 */
+
+	private final File directory;
+
+	/**
+	 * Where shards are written.
+	 */
+
+	private final BuildOutput output;
+
+	/**
+	 * Whether a lunr index should be prebuilt for each shard.
+	 */
+
+	private final boolean lunr;
+
+	/**
+	 * Whether languages are split by top-level directory.
+	 */
+
+	private final boolean byDirectory;
+
+	/**
+	 * The shards (mapped by key).
+	 */
+
+	private final Map<String, Shard> shards = new TreeMap<>();
+
+	/**
+	 * The file names that are already used by a shard.
+	 */
+
+	private final Set<String> fileNames = new HashSet<>();
+
+	/**
+	 * Creates a new SearchShards instance.
+	 *
+	 * @param directory The directory where shards are written.
+	 * @param output Where shards are written.
+	 * @param lunr Whether a lunr index should be prebuilt for each shard.
+	 * @param byDirectory Whether languages are split by top-level directory.
+	 */
+
+	public SearchShards(final File directory, final BuildOutput output, final boolean lunr, final boolean byDirectory) {
+		this.directory = directory;
+		this.output = output;
+		this.lunr = lunr;
+		this.byDirectory = byDirectory;
+	}
+
+	/**
+	 * Adds a page to its shard.
+	 *
+	 * @param page The page.
+	 * @param id The page identifier.
+	 * @param entry The search entry (a JSON object with a title, a content snippet, a URL, the headings text and the body text).
+	 *
+	 * @throws IOException If any exception occurs while writing the entry.
+	 */
+
+	public final void add(final DocsPage page, final String id, final String entry) throws IOException {
+		final String language = page.getLanguage();
+		final String topLevelDirectory = byDirectory ? getTopLevelDirectory(page) : null;
+		final String key = topLevelDirectory == null ? language : language + "/" + topLevelDirectory;
+
+		Shard shard = shards.get(key);
+		if(shard == null) {
+			shard = new Shard(language, getFileName(topLevelDirectory == null ? language : language + "-" + topLevelDirectory));
+			shards.put(key, shard);
+		}
+
+		final JsonObject object = Json.parse(entry).asObject();
+		final String headings = object.getString(ENTRY_HEADINGS, "");
+		final String text = object.getString(ENTRY_TEXT, "");
+		object.remove(ENTRY_HEADINGS);
+		object.remove(ENTRY_TEXT);
+		shard.index.add(id, object.toString());
+		if(shard.lunrIndex == null) {
+			shard.fullTextIndex.add(id, object.getString("title", ""), headings, text);
+		}
+		else {
+			shard.lunrIndex.add(id, object.set("id", id).set(ENTRY_HEADINGS, headings).set("content", text));
+		}
+	}
+
+	/**
+	 * Returns the shards.
+	 *
+	 * @return The shards.
+	 */
+
+	public final Collection<Shard> getShards() {
+		return shards.values();
+	}
+
+	/**
+	 * Returns the total number of entries.
+	 *
+	 * @return The total number of entries.
+	 */
+
+	public final int getCount() {
+		int count = 0;
+		for(final Shard shard : shards.values()) {
+			count += shard.index.getCount();
+		}
+		return count;
+	}
+
+	/**
+	 * Describes the shards (language to the list of its shards, each one having an "index" URL and either a "fullText" or a "lunr" URL).
+	 *
+	 * @return The JSON description of the shards.
+	 */
+
+	public final JsonObject toJSON() {
+		final JsonObject languages = new JsonObject();
+		for(final Shard shard : shards.values()) {
+			JsonArray shards = (JsonArray)languages.get(shard.language);
+			if(shards == null) {
+				shards = new JsonArray();
+				languages.add(shard.language, shards);
+			}
+
+			final JsonObject description = Json.object().add("index", shard.index.getFile().getName());
+			if(shard.lunrIndex == null) {
+				description.add("fullText", shard.getSearchIndexFile().getName());
+			}
+			else {
+				description.add("lunr", shard.getSearchIndexFile().getName());
+			}
+			shards.add(description);
+		}
+		return languages;
+	}
+
+	@Override
+	public final void close() throws IOException {
+		IOException exception = null;
+		for(final Shard shard : shards.values()) {
+			try {
+				shard.index.close();
+			}
+			catch(final IOException ex) {
+				exception = ex;
+			}
+		}
+		if(exception != null) {
+			throw exception;
+		}
+	}
+
+	/**
+	 * Returns the first directory of a page (ignoring the language directory).
+	 *
+	 * @param page The page.
+	 *
+	 * @return The top-level directory, or null if the page is at the root of its language.
+	 */
+
+	private static String getTopLevelDirectory(final DocsPage page) {
+		final List<String> segments = new ArrayList<>(Arrays.asList(page.getPageRelativeURL().split("/")));
+		segments.removeIf(String::isEmpty);
+		if(!segments.isEmpty() && segments.get(0).equals(page.getLanguage())) {
+			segments.remove(0);
+		}
+		return segments.size() > 1 ? segments.get(0) : null;
+	}
+
+	/**
+	 * Returns a unique file name for a shard.
+	 *
+	 * @param name The shard name.
+	 *
+	 * @return The file name (without prefix and suffix).
+	 */
+
+	private String getFileName(final String name) {
+		final String base = name.replaceAll("[^A-Za-z0-9._-]", "_");
+		String fileName = base;
+		for(int i = 2; !fileNames.add(fileName); i++) {
+			fileName = base + "-" + i;
+		}
+		return fileName;
+	}
+
+	/**
+	 * Represents a shard.
+	 */
+
+	public class Shard {
+
+		/**
+		 * The shard language.
+		 */
+
+		private final String language;
+
+		/**
+		 * The shard file name (without prefix and suffix).
+		 */
+
+		private final String name;
+
+		/**
+		 * The search entries.
+		 */
+
+		private final SearchIndexWriter index;
+
+		/**
+		 * The full-text index (null if a lunr index is prebuilt instead).
+		 */
+
+		private final FullTextIndexBuilder fullTextIndex;
+
+		/**
+		 * The prebuilt lunr index (null if a full-text index is built instead).
+		 */
+
+		private final LunrIndexBuilder lunrIndex;
+
+		/**
+		 * Creates a new Shard instance.
+		 *
+		 * @param language The shard language.
+		 * @param name The shard file name.
+		 */
+
+		private Shard(final String language, final String name) {
+			this.language = language;
+			this.name = name;
+			this.index = new SearchIndexWriter(new File(directory, Constants.FILE_SEARCH_INDEX_PREFIX + name + Constants.FILE_SEARCH_INDEX_SUFFIX), output);
+			this.fullTextIndex = lunr ? null : new FullTextIndexBuilder("title", ENTRY_HEADINGS, "body");
+			this.lunrIndex = lunr ? new LunrIndexBuilder(LunrPipeline.forLanguage(language), "id", "title", ENTRY_HEADINGS, "content", "url") : null;
+		}
+
+		/**
+		 * Returns the shard language.
+		 *
+		 * @return The shard language.
+		 */
+
+		public final String getLanguage() {
+			return language;
+		}
+
+		/**
+		 * Returns the file that contains the search entries.
+		 *
+		 * @return The file that contains the search entries.
+		 */
+
+		public final File getIndexFile() {
+			return index.getFile();
+		}
+
+		/**
+		 * Returns the file that contains the full-text index or the prebuilt lunr index.
+		 *
+		 * @return The search index file.
+		 */
+
+		public final File getSearchIndexFile() {
+			if(lunrIndex == null) {
+				return new File(directory, Constants.FILE_FULL_TEXT_INDEX_PREFIX + name + Constants.FILE_FULL_TEXT_INDEX_SUFFIX);
+			}
+			return new File(directory, Constants.FILE_LUNR_INDEX_PREFIX + name + Constants.FILE_LUNR_INDEX_SUFFIX);
+		}
+
+		/**
+		 * Writes the full-text index or the prebuilt lunr index.
+		 *
+		 * @throws IOException If any exception occurs while writing the index.
+		 */
+
+		public final void saveSearchIndex() throws IOException {
+			if(lunrIndex == null) {
+				fullTextIndex.save(getSearchIndexFile(), output);
+				return;
+			}
+			lunrIndex.save(getSearchIndexFile(), output);
+		}
+
+	}
+
+}
@@ -0,0 +1,193 @@
+package fr.skyost.skydocs.search;
+
+import fr.skyost.skydocs.utils.HTMLTextExtractor;
+import org.commonmark.node.*;
+
+/**
+ * The searchable text of a page, extracted from its CommonMark document (without rendering it to HTML).
+ * Headings are kept apart from the rest of the text so that they can be weighted separately.
+ */
+
+public class SearchText {
+
+	/**
+	 * The headings text.
+	 */
+
+	private final String headings;
+
+	/**
+	 * The body text (paragraphs, lists, tables, code spans and blocks, HTML blocks text).
+	 */
+
+	private final String body;
+
+	/**
+	 * Creates a new SearchText instance.
+	 *
+	 * @param headings The headings text.
+	 * @param body The body text.
+	 */
+
+	public SearchText(final String headings, final String body) {
+		this.headings = headings;
+		this.body = body;
+	}
+
+	/**
+	 * Extracts the searchable text of a CommonMark document.
+	 *
+	 * @param document The document.
+	 *
+	 * @return The searchable text.
+	 */
+
+	public static SearchText extract(final Node document) {
+		final TextVisitor visitor = new TextVisitor();
+		document.accept(visitor);
+		return new SearchText(visitor.headings.toString().trim(), visitor.body.toString().trim());
+	}
+
+	/**
+	 * Returns the headings text.
+	 *
+	 * @return The headings text.
+	 */
+
+	public final String getHeadings() {
+		return headings;
+	}
+
+	/**
+	 * Returns the body text.
+	 *
+	 * @return The body text.
+	 */
+
+	public final String getBody() {
+		return body;
+	}
+
+	/**
+	 * Collects the text of a CommonMark document.
+	 */
+
+	private static class TextVisitor extends AbstractVisitor {
+
+		/**
+		 * The headings text.
+		 */
+
+		private final StringBuilder headings = new StringBuilder();
+
+		/**
+		 * The body text.
+		 */
+
+		private final StringBuilder body = new StringBuilder();
+
+		/**
+		 * Where the text is currently collected.
+		 */
+
+		private StringBuilder current = body;
+
+		@Override
+		public final void visit(final Heading heading) {
+			current = headings;
+			visitChildren(heading);
+			separate();
+			current = body;
+		}
+
+		@Override
+		public final void visit(final Paragraph paragraph) {
+			visitChildren(paragraph);
+			separate();
+		}
+
+		@Override
+		public final void visit(final Text text) {
+			append(text.getLiteral());
+		}
+
+		@Override
+		public final void visit(final Code code) {
+			append(code.getLiteral());
+		}
+
+		@Override
+		public final void visit(final FencedCodeBlock codeBlock) {
+			append(codeBlock.getLiteral());
+			separate();
+		}
+
+		@Override
+		public final void visit(final IndentedCodeBlock codeBlock) {
+			append(codeBlock.getLiteral());
+			separate();
+		}
+
+		@Override
+		public final void visit(final HtmlBlock htmlBlock) {
+			append(HTMLTextExtractor.extract(htmlBlock.getLiteral()));
+			separate();
+		}
+
+		@Override
+		public final void visit(final HtmlInline htmlInline) {}
+
+		@Override
+		public final void visit(final SoftLineBreak softLineBreak) {
+			separate();
+		}
+
+		@Override
+		public final void visit(final HardLineBreak hardLineBreak) {
+			separate();
+		}
+
+		@Override
+		public final void visit(final CustomBlock customBlock) {
+			visitChildren(customBlock);
+			separate();
+		}
+
+		@Override
+		public final void visit(final CustomNode customNode) {
+			// Table cells are custom nodes, their content must not be merged.
+			visitChildren(customNode);
+			separate();
+		}
+
+		/**
+		 * Appends some text, collapsing whitespace.
+		 *
+		 * @param text The text.
+		 */
+
+		private void append(final String text) {
+			for(int i = 0; i != text.length(); i++) {
+				final char character = text.charAt(i);
+				if(Character.isWhitespace(character) || character == '\u00a0') {
+					separate();
+				}
+				else {
+					current.append(character);
+				}
+			}
+		}
+
+		/**
+		 * Separates the text that has been collected from the next one.
+		 */
+
+		private void separate() {
+			if(current.length() != 0 && current.charAt(current.length() - 1) != ' ') {
+				current.append(' ');
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,62 @@
+package fr.skyost.skydocs.search;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * A byte buffer that writes unsigned LEB128 varints (seven bits per byte, the highest bit telling whether another byte follows).
+ */
+
+public class VarIntBuffer extends ByteArrayOutputStream {
+
+	/**
+	 * Creates a new VarIntBuffer instance.
+	 */
+
+	public VarIntBuffer() {
+		super(16);
+	}
+
+	/**
+	 * Writes a varint.
+	 *
+	 * @param value The value (must be positive).
+	 */
+
+	public final void writeVarInt(int value) {
+		while((value & ~0x7F) != 0) {
+			write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		write(value);
+	}
+
+	/**
+	 * Writes the end of a byte array, prefixed by its length.
+	 *
+	 * @param bytes The bytes.
+	 * @param offset The first written byte.
+	 */
+
+	public final void writeString(final byte[] bytes, final int offset) {
+		writeVarInt(bytes.length - offset);
+		write(bytes, offset, bytes.length - offset);
+	}
+
+	/**
+	 * Returns the number of bytes needed to encode a varint.
+	 *
+	 * @param value The value.
+	 *
+	 * @return The number of bytes.
+	 */
+
+	public static int varIntSize(int value) {
+		int size = 1;
+		while((value & ~0x7F) != 0) {
+			value >>>= 7;
+			size++;
+		}
+		return size;
+	}
+
+}
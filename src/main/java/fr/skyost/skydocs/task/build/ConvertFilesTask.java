@@ -1,7 +1,10 @@
 package fr.skyost.skydocs.task.build;
 
+import com.eclipsesource.json.Json;
 import com.google.common.base.Ascii;
 import fr.skyost.skydocs.*;
+import fr.skyost.skydocs.search.SearchShards;
+import fr.skyost.skydocs.search.SearchText;
 import fr.skyost.skydocs.utils.Utils;
 import org.jtwig.JtwigTemplate;
 
@@ -12,8 +15,8 @@ import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * The task that allows to create the build directory.
@@ -33,15 +36,41 @@ public class ConvertFilesTask extends DocsRunnable<HashSet<File>> {
 
 	private boolean compressPages;
 
+	/**
+	 * The number of threads used to convert pages.
+	 */
+
+	private int threads;
+
+	/**
+	 * The build manifest (null if the build is not incremental).
+	 */
+
+	private DocsManifest manifest;
+
+	/**
+	 * The pages to convert (null to convert every page that is not up-to-date).
+	 * Other pages are kept from the previous build without being checked.
+	 */
+
+	private Set<DocsPage> pagesToConvert;
+
+	/**
+	 * Whether pages should not be converted (they are rendered on demand by the server, see {@link LazyRenderer}).
+	 */
+
+	private boolean lazy;
+
 	/**
 	 * Creates a new Task instance.
 	 *
 	 * @param project The project.
 	 * @param compressPages Whether pages should be compressed.
+	 * @param threads The number of threads used to convert pages.
 	 */
 
-	public ConvertFilesTask(final DocsProject project, final boolean compressPages) {
-		this(project, compressPages, System.out);
+	public ConvertFilesTask(final DocsProject project, final boolean compressPages, final int threads) {
+		this(project, compressPages, threads, System.out);
 	}
 
 	/**
@@ -49,14 +78,16 @@ public class ConvertFilesTask extends DocsRunnable<HashSet<File>> {
 	 *
 	 * @param project The project.
 	 * @param compressPages Whether pages should be compressed.
+	 * @param threads The number of threads used to convert pages.
 	 * @param out The output stream.
 	 */
 
-	public ConvertFilesTask(final DocsProject project, final boolean compressPages, final PrintStream out) {
+	public ConvertFilesTask(final DocsProject project, final boolean compressPages, final int threads, final PrintStream out) {
 		super(out, null);
 
 		this.project = project;
 		this.compressPages = compressPages;
+		this.threads = threads;
 	}
 
 	@Override
@@ -66,43 +97,87 @@ public class ConvertFilesTask extends DocsRunnable<HashSet<File>> {
 		final HashSet<File> copied = new HashSet<>();
 
 		final DocsTemplate template = project.getTemplate();
+		for(final DocsMenu menu : project.getMenus()) {
+			menu.invalidate();
+		}
 		final boolean lunr = project.hasLunrSearch();
-		final StringBuilder lunrContent = new StringBuilder();
+		final File buildDirectory = project.getBuildDirectory();
+		final SearchShards searchShards = new SearchShards(buildDirectory, project.getBuildOutput(), project.hasLunrPrebuiltIndex(), project.hasLunrDirectoryShards());
 
-		for(final DocsPage page : project.getPages()) {
-			exitIfInterrupted();
+		// Pages are sorted so that the output (and the search index) does not depend on the number of threads.
+		final List<DocsPage> pages = new ArrayList<>(project.getPages());
+		Collections.sort(pages);
 
-			final File file = page.getFile();
-			if(!file.exists() || !file.isFile()) {
-				continue;
+		if(lazy) {
+			for(final DocsPage page : pages) {
+				copied.add(page.getFile());
 			}
+			pages.clear();
+		}
 
-			final File destination = page.getBuildDestination();
-			if(!destination.getParentFile().exists()) {
-				destination.getParentFile().mkdirs();
-			}
+		final ExecutorService executor = threads > 1 ? Executors.newWorkStealingPool(threads) : null;
+		try {
+			final List<Future<String>> results = new ArrayList<>();
+			final boolean[] converted = new boolean[pages.size()];
+			for(int i = 0; i != pages.size(); i++) {
+				exitIfInterrupted();
+
+				final DocsPage page = pages.get(i);
+				if(manifest != null && (isKept(page) || manifest.isUpToDate(page.getFile(), true))) {
+					manifest.keep(page.getFile());
+					project.getMetrics().addKeptPage();
+					results.add(CompletableFuture.completedFuture(lunr ? manifest.getSearchEntry(page.getFile()) : ""));
+					continue;
+				}
 
-			if(lunr) {
-				String content = Utils.stripHTML(page.getContent());
-				if(content.length() >= 140) {
-					content = Ascii.truncate(content, 140, "...");
+				converted[i] = true;
+				if(executor == null) {
+					results.add(CompletableFuture.completedFuture(convertPage(template, page, lunr)));
+					continue;
 				}
-				lunrContent.append("'" + page.getPageRelativeURL().replace('/', '-') + "': {" + "title: '" + Utils.stripHTML(page.getTitle()).replace("'", "\\'") + "', " + "content: '" + content.replace("'", "\\'") + "', " + "url: '" + page.getPageRelativeURL().substring(1) + "'" + "}, ");
+				results.add(executor.submit(() -> convertPage(template, page, lunr)));
 			}
 
-			template.applyTemplate(destination, compressPages, page, null);
-			copied.add(file);
+			for(int i = 0; i != results.size(); i++) {
+				exitIfInterrupted();
+
+				final String searchEntry = getResult(results.get(i));
+				if(searchEntry == null) {
+					continue;
+				}
+
+				final DocsPage page = pages.get(i);
+				if(manifest != null && converted[i]) {
+					manifest.record(page.getFile(), Collections.singletonList(page.getBuildDestination()), page.getDependencies(), lunr ? searchEntry : null);
+				}
+
+				// Entries are streamed to their shard as soon as their page is converted (in page order).
+				if(lunr && !searchEntry.isEmpty()) {
+					searchShards.add(page, page.getPageRelativeURL().replace('/', '-'), searchEntry);
+				}
+				copied.add(page.getFile());
+			}
+		}
+		finally {
+			if(executor != null) {
+				executor.shutdownNow();
+			}
+			searchShards.close();
 		}
 
-		final File buildDirectory = project.getBuildDirectory();
-		if(lunr && lunrContent.length() > 0) {
-			final String lunrContentString = lunrContent.toString();
+		if(searchShards.getCount() > 0) {
+			final File searchPage = new File(buildDirectory, Constants.RESOURCE_SEARCH_PAGE_FILE);
+			Files.deleteIfExists(searchPage.toPath());
 			Utils.extract(Constants.RESOURCE_SEARCH_PAGE_PATH, Constants.RESOURCE_SEARCH_PAGE_FILE, buildDirectory);
 
+			saveSearchShards(searchShards);
 			final HashMap<String, Object> pageVariables = new HashMap<>();
-			pageVariables.put(Constants.VARIABLE_LUNR_DATA, "const PAGES = {" + (lunrContentString.length() > 0 ? lunrContentString.substring(0, lunrContentString.length() - 2) : "") + "};");
+			pageVariables.put(Constants.VARIABLE_SEARCH_SHARDS, searchShards.toJSON().toString());
 
-			template.applyTemplate(new File(buildDirectory, Constants.RESOURCE_SEARCH_PAGE_FILE), compressPages, null, pageVariables);
+			template.applyTemplate(searchPage, compressPages, null, pageVariables);
+			if(manifest != null) {
+				manifest.addGenerated(searchPage);
+			}
 		}
 
 		final File contentDirectory = Utils.createFileIfNotExist(project.getContentDirectory());
@@ -110,9 +185,18 @@ public class ConvertFilesTask extends DocsRunnable<HashSet<File>> {
 			exitIfInterrupted();
 			copyFile(copied, content, buildDirectory);
 		}
+		final File redirectionPage = new File(buildDirectory, Constants.RESOURCE_REDIRECT_LANGUAGE_FILE);
+		Files.deleteIfExists(redirectionPage.toPath());
 		Utils.extract(Constants.RESOURCE_REDIRECT_LANGUAGE_PATH, Constants.RESOURCE_REDIRECT_LANGUAGE_FILE, buildDirectory);
 
-		Files.write(new File(buildDirectory, Constants.RESOURCE_REDIRECT_LANGUAGE_FILE).toPath(), JtwigTemplate.fileTemplate(new File(buildDirectory, Constants.RESOURCE_REDIRECT_LANGUAGE_FILE)).render(template.createModel().with(Constants.VARIABLE_REDIRECTION_URL, project.getDefaultLanguage() + "/")).getBytes(StandardCharsets.UTF_8));
+		final byte[] redirection = JtwigTemplate.fileTemplate(redirectionPage).render(template.createModel().with(Constants.VARIABLE_REDIRECTION_URL, project.getDefaultLanguage() + "/")).getBytes(StandardCharsets.UTF_8);
+		final long start = project.getMetrics().start();
+		project.getBuildOutput().write(redirectionPage, redirection);
+		project.getMetrics().stop(BuildMetrics.Phase.DISK_WRITE, start);
+		project.getMetrics().addWrittenFile(redirection.length);
+		if(manifest != null) {
+			manifest.addGenerated(redirectionPage);
+		}
 
 		return copied;
 	}
@@ -157,6 +241,194 @@ public class ConvertFilesTask extends DocsRunnable<HashSet<File>> {
 		this.compressPages = compressPages;
 	}
 
+	/**
+	 * Returns the number of threads used to convert pages.
+	 *
+	 * @return The number of threads used to convert pages.
+	 */
+
+	public final int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * Sets the number of threads used to convert pages.
+	 *
+	 * @param threads The number of threads used to convert pages.
+	 */
+
+	public final void setThreads(final int threads) {
+		this.threads = threads;
+	}
+
+	/**
+	 * Returns the build manifest.
+	 *
+	 * @return The build manifest (null if the build is not incremental).
+	 */
+
+	public final DocsManifest getManifest() {
+		return manifest;
+	}
+
+	/**
+	 * Sets the build manifest. Pages and files that have not changed since the previous build are not converted again.
+	 *
+	 * @param manifest The build manifest (null if the build is not incremental).
+	 */
+
+	public final void setManifest(final DocsManifest manifest) {
+		this.manifest = manifest;
+	}
+
+	/**
+	 * Returns the pages to convert.
+	 *
+	 * @return The pages to convert (null to convert every page that is not up-to-date).
+	 */
+
+	public final Set<DocsPage> getPagesToConvert() {
+		return pagesToConvert;
+	}
+
+	/**
+	 * Sets the pages to convert. Other pages are kept from the previous build without being checked (requires a manifest).
+	 *
+	 * @param pagesToConvert The pages to convert (null to convert every page that is not up-to-date).
+	 */
+
+	public final void setPagesToConvert(final Set<DocsPage> pagesToConvert) {
+		this.pagesToConvert = pagesToConvert;
+	}
+
+	/**
+	 * Returns whether pages are not converted.
+	 *
+	 * @return Whether pages are not converted.
+	 */
+
+	public final boolean isLazy() {
+		return lazy;
+	}
+
+	/**
+	 * Sets whether pages should not be converted. Other files are still copied, but pages are left to a {@link LazyRenderer}
+	 * (and the search page, which needs the text of every page, is not generated).
+	 *
+	 * @param lazy Whether pages should not be converted.
+	 */
+
+	public final void setLazy(final boolean lazy) {
+		this.lazy = lazy;
+	}
+
+	/**
+	 * Checks whether a page should be kept from the previous build without being checked.
+	 *
+	 * @param page The page.
+	 *
+	 * @return Whether the page should be kept.
+	 */
+
+	private boolean isKept(final DocsPage page) {
+		return pagesToConvert != null && !pagesToConvert.contains(page) && manifest.isRecorded(page.getFile());
+	}
+
+	/**
+	 * Converts a page and writes it to its build destination. This method may be called from any thread.
+	 *
+	 * @param template The project's template.
+	 * @param page The page.
+	 * @param lunr Whether the search entry should be generated.
+	 *
+	 * @return The search entry of this page (a JSON object that also contains the page headings and body text, empty if lunr is disabled), or null if the page has not been converted.
+	 *
+	 * @throws IOException If any exception occurs while saving the page.
+	 */
+
+	private String convertPage(final DocsTemplate template, final DocsPage page, final boolean lunr) throws IOException {
+		final File file = page.getFile();
+		if(isInterrupted() || !file.exists() || !file.isFile()) {
+			return null;
+		}
+
+		final long start = project.getMetrics().start();
+		final File destination = page.getBuildDestination();
+		page.clearDependencies();
+		page.clearRenderedContent();
+
+		String searchEntry = "";
+		if(lunr) {
+			final SearchText searchText = page.getSearchText();
+			final String text = searchText.getBody();
+			searchEntry = Json.object()
+					.add("title", Utils.stripHTML(page.getTitle()))
+					.add("content", text.length() >= 140 ? Ascii.truncate(text, 140, "...") : text)
+					.add("url", page.getPageRelativeURL().substring(1))
+					.add(SearchShards.ENTRY_HEADINGS, searchText.getHeadings())
+					.add(SearchShards.ENTRY_TEXT, text)
+					.toString();
+		}
+
+		template.applyTemplate(destination, compressPages, page, null);
+		project.getMetrics().addPage(page, start);
+		return searchEntry;
+	}
+
+	/**
+	 * Writes the full-text index (or the prebuilt lunr index) of each shard and registers the shards files.
+	 *
+	 * @param searchShards The (closed) search index shards.
+	 *
+	 * @throws IOException If any exception occurs while writing an index.
+	 */
+
+	private void saveSearchShards(final SearchShards searchShards) throws IOException {
+		final BuildMetrics metrics = project.getMetrics();
+		for(final SearchShards.Shard shard : searchShards.getShards()) {
+			final long start = metrics.start();
+			shard.saveSearchIndex();
+			metrics.stop(BuildMetrics.Phase.DISK_WRITE, start);
+
+			for(final File file : Arrays.asList(shard.getIndexFile(), shard.getSearchIndexFile())) {
+				metrics.addWrittenFile(project.getBuildOutput().getLength(file));
+				if(manifest != null) {
+					manifest.addGenerated(file);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Waits for a page conversion to finish and returns its result.
+	 *
+	 * @param future The page conversion.
+	 *
+	 * @return The conversion result.
+	 *
+	 * @throws InterruptionException If the task has been interrupted while waiting.
+	 * @throws IOException If any exception occurred while converting the page.
+	 */
+
+	private String getResult(final Future<String> future) throws InterruptionException, IOException {
+		try {
+			return future.get();
+		}
+		catch(final InterruptedException ex) {
+			throw new InterruptionException();
+		}
+		catch(final ExecutionException ex) {
+			final Throwable cause = ex.getCause();
+			if(cause instanceof IOException) {
+				throw (IOException)cause;
+			}
+			if(cause instanceof RuntimeException) {
+				throw (RuntimeException)cause;
+			}
+			throw new IOException(cause);
+		}
+	}
+
 	/**
 	 * Copy a file or a directory.
 	 *
@@ -174,10 +446,25 @@ public class ConvertFilesTask extends DocsRunnable<HashSet<File>> {
 		if(file.isFile()) {
 			try {
 				destination = new File(destination, file.getName());
-				if(!destination.getParentFile().exists()) {
-					destination.getParentFile().mkdirs();
+				if(manifest != null) {
+					if(manifest.isUpToDate(file, false)) {
+						manifest.keep(file);
+						return;
+					}
+					if(manifest.hasOutput(destination)) {
+						throw new FileAlreadyExistsException(destination.getPath());
+					}
+				}
+				final BuildMetrics metrics = project.getMetrics();
+				final long start = metrics.start();
+				project.getBuildOutput().copy(file, destination, manifest != null);
+				if(manifest != null) {
+					manifest.record(file, Collections.singletonList(destination), Collections.emptyList(), null);
+				}
+				metrics.stop(BuildMetrics.Phase.DISK_WRITE, start);
+				if(metrics.isEnabled()) {
+					metrics.addWrittenFile(file.length());
 				}
-				Files.copy(file.toPath(), destination.toPath());
 			}
 			catch(final FileAlreadyExistsException ex) {
 				blankLine();
@@ -185,7 +472,7 @@ public class ConvertFilesTask extends DocsRunnable<HashSet<File>> {
 			}
 			return;
 		}
-		destination.mkdirs();
+		project.getBuildOutput().createDirectory(destination);
 		for(final File child : file.listFiles()) {
 			copyFile(copied, child, new File(destination.getPath() + File.separator + file.getName()));
 		}
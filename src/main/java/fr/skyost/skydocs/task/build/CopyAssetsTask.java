@@ -1,16 +1,22 @@
 package fr.skyost.skydocs.task.build;
 
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import com.inet.lib.less.Less;
 import com.yahoo.platform.yui.compressor.CssCompressor;
 import com.yahoo.platform.yui.compressor.JavaScriptCompressor;
+import fr.skyost.skydocs.BuildMetrics;
 import fr.skyost.skydocs.Constants;
+import fr.skyost.skydocs.DocsManifest;
 import fr.skyost.skydocs.DocsProject;
 import fr.skyost.skydocs.DocsRunnable;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
-import java.util.Collection;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * The task that allows to copy assets.
@@ -36,16 +42,29 @@ public class CopyAssetsTask extends DocsRunnable<Boolean> {
 
 	private boolean minify;
 
+	/**
+	 * The number of threads used to process assets.
+	 */
+
+	private int threads;
+
+	/**
+	 * The build manifest (null if the build is not incremental).
+	 */
+
+	private DocsManifest manifest;
+
 	/**
 	 * Creates a new Task instance.
 	 *
 	 * @param project The project.
 	 * @param alreadyCopied Files that have already been copied and that should not be copied again.
 	 * @param minify Whether assets should be minified if possible.
+	 * @param threads The number of threads used to process assets.
 	 */
 
-	public CopyAssetsTask(final DocsProject project, final Collection<File> alreadyCopied, final boolean minify) {
-		this(project, alreadyCopied, minify, System.out);
+	public CopyAssetsTask(final DocsProject project, final Collection<File> alreadyCopied, final boolean minify, final int threads) {
+		this(project, alreadyCopied, minify, threads, System.out);
 	}
 
 	/**
@@ -54,15 +73,17 @@ public class CopyAssetsTask extends DocsRunnable<Boolean> {
 	 * @param project The project.
 	 * @param alreadyCopied Files that have already been copied and that should not be copied again.
 	 * @param minify Whether assets should be minified if possible.
+	 * @param threads The number of threads used to process assets.
 	 * @param out The output stream.
 	 */
 
-	public CopyAssetsTask(final DocsProject project, final Collection<File> alreadyCopied, final boolean minify, final PrintStream out) {
+	public CopyAssetsTask(final DocsProject project, final Collection<File> alreadyCopied, final boolean minify, final int threads, final PrintStream out) {
 		super(out, null);
 
 		this.project = project;
 		this.alreadyCopied = alreadyCopied;
 		this.minify = minify;
+		this.threads = threads;
 	}
 
 	@Override
@@ -71,10 +92,62 @@ public class CopyAssetsTask extends DocsRunnable<Boolean> {
 
 		final File buildDirectory = project.getBuildDirectory();
 		final File assetsDirectory = new File(project.getThemeDirectory(), Constants.FILE_ASSETS_DIRECTORY);
-		if(assetsDirectory.exists() && assetsDirectory.isDirectory()) {
+		if(!assetsDirectory.exists() || !assetsDirectory.isDirectory()) {
+			return true;
+		}
+
+		final Map<File, File> assets = new LinkedHashMap<>();
+		final List<File> upToDate = new ArrayList<>();
+		listAssets(assetsDirectory, new File(buildDirectory, Constants.FILE_ASSETS_DIRECTORY), assets, upToDate);
+
+		final File cacheDirectory = new File(project.getCacheDirectory(), Constants.FILE_ASSETS_DIRECTORY);
+		// A LESS file may import any other LESS file, so all of them are dependencies of each LESS asset.
+		final List<File> lessFiles = new ArrayList<>();
+		if(project.hasLess()) {
+			listLessFiles(assetsDirectory, lessFiles);
+			Collections.sort(lessFiles);
+		}
+		final String lessHash = project.hasLess() ? hashLessFiles(assetsDirectory, lessFiles) : null;
+		final Set<File> usedCacheFiles = ConcurrentHashMap.newKeySet();
+
+		final ExecutorService executor = threads > 1 ? Executors.newWorkStealingPool(threads) : null;
+		try {
+			final Map<File, Future<File>> results = new LinkedHashMap<>();
+			for(final Map.Entry<File, File> asset : assets.entrySet()) {
+				exitIfInterrupted();
+
+				final File source = asset.getKey();
+				final File destination = asset.getValue();
+				if(executor == null) {
+					results.put(source, CompletableFuture.completedFuture(processAsset(source, destination, cacheDirectory, lessHash, usedCacheFiles)));
+					continue;
+				}
+				results.put(source, executor.submit(() -> processAsset(source, destination, cacheDirectory, lessHash, usedCacheFiles)));
+			}
+
+			for(final Map.Entry<File, Future<File>> result : results.entrySet()) {
+				exitIfInterrupted();
+				final File source = result.getKey();
+				final boolean less = lessHash != null && com.google.common.io.Files.getFileExtension(source.getName()).equalsIgnoreCase("less");
+				recordAsset(source, getResult(result.getValue()), less ? lessFiles : Collections.emptyList());
+			}
+		}
+		finally {
+			if(executor != null) {
+				executor.shutdownNow();
+			}
+		}
+
+		// Up-to-date assets are not processed again, but their cache files are still valid.
+		for(final File asset : upToDate) {
 			exitIfInterrupted();
-			copyAsset(assetsDirectory, new File(buildDirectory, Constants.FILE_ASSETS_DIRECTORY));
+			final String extension = com.google.common.io.Files.getFileExtension(asset.getName());
+			final String settings = getCacheSettings(extension, lessHash);
+			if(settings != null) {
+				usedCacheFiles.add(getCacheFile(asset, getProcessedExtension(extension, lessHash), settings, cacheDirectory));
+			}
 		}
+		cleanCache(cacheDirectory, usedCacheFiles);
 
 		return true;
 	}
@@ -140,49 +213,357 @@ public class CopyAssetsTask extends DocsRunnable<Boolean> {
 	}
 
 	/**
-	 * Copies an asset (file or directory).
+	 * Returns the number of threads used to process assets.
+	 *
+	 * @return The number of threads used to process assets.
+	 */
+
+	public final int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * Sets the number of threads used to process assets.
+	 *
+	 * @param threads The number of threads used to process assets.
+	 */
+
+	public final void setThreads(final int threads) {
+		this.threads = threads;
+	}
+
+	/**
+	 * Returns the build manifest.
+	 *
+	 * @return The build manifest (null if the build is not incremental).
+	 */
+
+	public final DocsManifest getManifest() {
+		return manifest;
+	}
+
+	/**
+	 * Sets the build manifest. Assets that have not changed since the previous build are not processed again.
+	 *
+	 * @param manifest The build manifest (null if the build is not incremental).
+	 */
+
+	public final void setManifest(final DocsManifest manifest) {
+		this.manifest = manifest;
+	}
+
+	/**
+	 * Lists the assets that need to be processed (assets that are up-to-date are kept) and creates the destination directories.
 	 *
 	 * @param directory The assets directory.
 	 * @param destination The destination.
+	 * @param assets Where to put the assets (source : destination).
+	 * @param upToDate Where to put the assets that are up-to-date.
 	 *
-	 * @throws IOException If any exception occurs while copying assets.
+	 * @throws InterruptionException If the task has been interrupted.
+	 * @throws IOException If any exception occurs while checking an asset.
 	 */
 
-	private void copyAsset(final File directory, File destination) throws IOException {
+	private void listAssets(final File directory, final File destination, final Map<File, File> assets, final List<File> upToDate) throws InterruptionException, IOException {
+		exitIfInterrupted();
 		if(directory.isFile()) {
-			final String extension = com.google.common.io.Files.getFileExtension(directory.getName());
-			if(extension.equalsIgnoreCase("less") && project.hasLess()) {
-				destination = new File(destination.getParentFile(), com.google.common.io.Files.getNameWithoutExtension(destination.getName()) + ".css");
-				Files.write(destination.toPath(), Less.compile(directory, minify).getBytes(StandardCharsets.UTF_8));
+			if(manifest != null && manifest.isUpToDate(directory, false)) {
+				manifest.keep(directory);
+				upToDate.add(directory);
 				return;
 			}
+			assets.put(directory, destination);
+			return;
+		}
+		project.getBuildOutput().createDirectory(destination);
+		for(final File file : directory.listFiles()) {
+			listAssets(file, new File(destination, file.getName()), assets, upToDate);
+		}
+	}
 
-			if(minify && (extension.equalsIgnoreCase("css") || extension.equalsIgnoreCase("js"))) {
-				final InputStreamReader input = new InputStreamReader(new FileInputStream(directory), StandardCharsets.UTF_8);
-				final OutputStreamWriter output = new OutputStreamWriter(new FileOutputStream(destination), StandardCharsets.UTF_8);
+	/**
+	 * Processes an asset (compiles or minifies it if needed) and writes it to its destination.
+	 * Compiled and minified assets are cached according to their content and to the current settings. This method may be called from any thread.
+	 *
+	 * @param asset The asset.
+	 * @param destination The destination.
+	 * @param cacheDirectory The cache directory.
+	 * @param lessHash The hash of all LESS files (null if LESS is disabled).
+	 * @param usedCacheFiles Where to put the cache file of the asset (if any).
+	 *
+	 * @return Where the asset has been written.
+	 *
+	 * @throws IOException If any exception occurs while processing the asset.
+	 */
 
-				if(extension.equalsIgnoreCase("css")) {
-					final CssCompressor compressor = new CssCompressor(input);
-					compressor.compress(output, -1);
-				}
+	private File processAsset(final File asset, File destination, final File cacheDirectory, final String lessHash, final Set<File> usedCacheFiles) throws IOException {
+		final String extension = com.google.common.io.Files.getFileExtension(asset.getName());
+		final String settings = getCacheSettings(extension, lessHash);
+		if(settings == null) {
+			copy(asset, destination);
+			return destination;
+		}
+
+		final File cached = getCacheFile(asset, getProcessedExtension(extension, lessHash), settings, cacheDirectory);
+		usedCacheFiles.add(cached);
 
-				else {
-					final JavaScriptCompressor compressor = new JavaScriptCompressor(input, null);
-					compressor.compress(output, -1, true, false, false, false);
+		if(extension.equalsIgnoreCase("less") && lessHash != null) {
+			destination = new File(destination.getParentFile(), com.google.common.io.Files.getNameWithoutExtension(destination.getName()) + ".css");
+			copyFromCache(destination, cached, BuildMetrics.Phase.LESS_COMPILATION, () -> Less.compile(asset, minify));
+			return destination;
+		}
+
+		if(extension.equalsIgnoreCase("css")) {
+			copyFromCache(destination, cached, BuildMetrics.Phase.MINIFICATION, () -> {
+				final StringWriter output = new StringWriter();
+				try(final Reader input = new InputStreamReader(new FileInputStream(asset), StandardCharsets.UTF_8)) {
+					new CssCompressor(input).compress(output, -1);
 				}
+				return output.toString();
+			});
+			return destination;
+		}
 
-				input.close();
-				output.close();
-				return;
+		copyFromCache(destination, cached, BuildMetrics.Phase.MINIFICATION, () -> {
+			final StringWriter output = new StringWriter();
+			try(final Reader input = new InputStreamReader(new FileInputStream(asset), StandardCharsets.UTF_8)) {
+				new JavaScriptCompressor(input, null).compress(output, -1, true, false, false, false);
+			}
+			return output.toString();
+		});
+		return destination;
+	}
+
+	/**
+	 * Returns the processor settings of an asset (part of the cache key).
+	 *
+	 * @param extension The asset extension.
+	 * @param lessHash The hash of all LESS files (null if LESS is disabled).
+	 *
+	 * @return The processor settings, or null if the asset is copied as is.
+	 */
+
+	private String getCacheSettings(final String extension, final String lessHash) {
+		if(extension.equalsIgnoreCase("less") && lessHash != null) {
+			// A LESS file may import any other LESS file, so all of them are part of the cache key.
+			return "less|" + lessHash;
+		}
+		if(minify && extension.equalsIgnoreCase("css")) {
+			return "css";
+		}
+		if(minify && extension.equalsIgnoreCase("js")) {
+			return "js|-1|true|false|false|false";
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the extension of a processed asset.
+	 *
+	 * @param extension The asset extension.
+	 * @param lessHash The hash of all LESS files (null if LESS is disabled).
+	 *
+	 * @return The extension of the processed asset.
+	 */
+
+	private static String getProcessedExtension(final String extension, final String lessHash) {
+		return extension.equalsIgnoreCase("less") && lessHash != null ? "css" : extension;
+	}
+
+	/**
+	 * Returns the cache file of an asset. Its name depends on the asset content and on the current settings.
+	 *
+	 * @param asset The asset.
+	 * @param extension The extension of the processed asset.
+	 * @param settings The processor settings (part of the cache key).
+	 * @param cacheDirectory The cache directory.
+	 *
+	 * @return The cache file.
+	 *
+	 * @throws IOException If any exception occurs while reading the asset.
+	 */
+
+	private File getCacheFile(final File asset, final String extension, final String settings, final File cacheDirectory) throws IOException {
+		final String key = Hashing.sha256().newHasher()
+				.putString(Constants.APP_VERSION + "|" + settings + "|" + minify + "|", StandardCharsets.UTF_8)
+				.putBytes(Files.readAllBytes(asset.toPath()))
+				.hash().toString();
+		return new File(cacheDirectory, key + "." + extension);
+	}
+
+	/**
+	 * Copies the processed version of an asset from the cache, processing it first if it is not cached yet.
+	 *
+	 * @param destination The destination.
+	 * @param cached The cache file.
+	 * @param phase The build phase of the processor.
+	 * @param processor The processor.
+	 *
+	 * @throws IOException If any exception occurs while processing or copying the asset.
+	 */
+
+	private void copyFromCache(final File destination, final File cached, final BuildMetrics.Phase phase, final AssetProcessor processor) throws IOException {
+		if(!cached.isFile()) {
+			final File cacheDirectory = cached.getParentFile();
+			cacheDirectory.mkdirs();
+			final File temporary = File.createTempFile(com.google.common.io.Files.getNameWithoutExtension(cached.getName()), ".tmp", cacheDirectory);
+			try {
+				final BuildMetrics metrics = project.getMetrics();
+				final long start = metrics.start();
+				final String processed = processor.process();
+				metrics.stop(phase, start);
+				Files.write(temporary.toPath(), processed.getBytes(StandardCharsets.UTF_8));
+				Files.move(temporary.toPath(), cached.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+			finally {
+				Files.deleteIfExists(temporary.toPath());
 			}
+		}
+		copy(cached, destination);
+	}
 
-			Files.copy(directory.toPath(), destination.toPath());
+	/**
+	 * Deletes the cache files that have not been used by this build, so that the cache does not keep outdated versions of assets.
+	 *
+	 * @param cacheDirectory The cache directory.
+	 * @param usedCacheFiles The cache files used by this build.
+	 *
+	 * @throws IOException If any exception occurs while deleting a file.
+	 */
+
+	private static void cleanCache(final File cacheDirectory, final Set<File> usedCacheFiles) throws IOException {
+		final File[] files = cacheDirectory.listFiles();
+		if(files == null) {
 			return;
 		}
-		destination.mkdirs();
-		for(final File file : directory.listFiles()) {
-			copyAsset(file, new File(destination, file.getName()));
+		for(final File file : files) {
+			if(file.isFile() && !usedCacheFiles.contains(file)) {
+				Files.deleteIfExists(file.toPath());
+			}
+		}
+	}
+
+	/**
+	 * Copies a file to its destination (replacing any existing file).
+	 *
+	 * @param file The file.
+	 * @param destination The destination.
+	 *
+	 * @throws IOException If any exception occurs while copying the file.
+	 */
+
+	private void copy(final File file, final File destination) throws IOException {
+		final BuildMetrics metrics = project.getMetrics();
+		final long start = metrics.start();
+		final long length = project.getBuildOutput().copy(file, destination, true);
+		metrics.stop(BuildMetrics.Phase.DISK_WRITE, start);
+		metrics.addWrittenFile(length);
+	}
+
+	/**
+	 * Hashes all LESS files located in the specified directory (and its sub-directories).
+	 *
+	 * @param directory The directory.
+	 * @param files The LESS files (sorted).
+	 *
+	 * @return The hash.
+	 *
+	 * @throws IOException If any exception occurs while reading a file.
+	 */
+
+	private static String hashLessFiles(final File directory, final List<File> files) throws IOException {
+		final Hasher hasher = Hashing.sha256().newHasher();
+		for(final File file : files) {
+			hasher.putString(directory.toPath().relativize(file.toPath()).toString(), StandardCharsets.UTF_8);
+			hasher.putBytes(Files.readAllBytes(file.toPath()));
+		}
+		return hasher.hash().toString();
+	}
+
+	/**
+	 * Lists all LESS files located in the specified directory (and its sub-directories).
+	 *
+	 * @param directory The directory.
+	 * @param files Where to put the files.
+	 */
+
+	private static void listLessFiles(final File directory, final List<File> files) {
+		final File[] children = directory.listFiles();
+		if(children == null) {
+			return;
+		}
+		for(final File child : children) {
+			if(child.isDirectory()) {
+				listLessFiles(child, files);
+			}
+			else if(com.google.common.io.Files.getFileExtension(child.getName()).equalsIgnoreCase("less")) {
+				files.add(child);
+			}
+		}
+	}
+
+	/**
+	 * Waits for an asset to be processed and returns its destination.
+	 *
+	 * @param future The asset processing.
+	 *
+	 * @return Where the asset has been written.
+	 *
+	 * @throws InterruptionException If the task has been interrupted while waiting.
+	 * @throws IOException If any exception occurred while processing the asset.
+	 */
+
+	private File getResult(final Future<File> future) throws InterruptionException, IOException {
+		try {
+			return future.get();
 		}
+		catch(final InterruptedException ex) {
+			throw new InterruptionException();
+		}
+		catch(final ExecutionException ex) {
+			final Throwable cause = ex.getCause();
+			if(cause instanceof IOException) {
+				throw (IOException)cause;
+			}
+			if(cause instanceof RuntimeException) {
+				throw (RuntimeException)cause;
+			}
+			throw new IOException(cause);
+		}
+	}
+
+	/**
+	 * Records a processed asset in the build manifest (if any).
+	 *
+	 * @param asset The asset.
+	 * @param destination Where the asset has been written.
+	 * @param dependencies The other files that have been read to process the asset.
+	 *
+	 * @throws IOException If any exception occurs while recording the asset.
+	 */
+
+	private void recordAsset(final File asset, final File destination, final Collection<File> dependencies) throws IOException {
+		if(manifest != null) {
+			manifest.record(asset, Collections.singletonList(destination), dependencies, null);
+		}
+	}
+
+	/**
+	 * Compiles or minifies an asset.
+	 */
+
+	private interface AssetProcessor {
+
+		/**
+		 * Processes the asset.
+		 *
+		 * @return The processed content.
+		 *
+		 * @throws IOException If any exception occurs while reading the asset.
+		 */
+
+		String process() throws IOException;
+
 	}
 
 }
\ No newline at end of file
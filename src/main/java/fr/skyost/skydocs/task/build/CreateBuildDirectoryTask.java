@@ -1,8 +1,8 @@
 package fr.skyost.skydocs.task.build;
 
+import fr.skyost.skydocs.BuildOutput;
 import fr.skyost.skydocs.DocsProject;
 import fr.skyost.skydocs.DocsRunnable;
-import fr.skyost.skydocs.utils.Utils;
 
 import java.io.File;
 import java.io.PrintStream;
@@ -19,6 +19,12 @@ public class CreateBuildDirectoryTask extends DocsRunnable<Boolean> {
 
 	private DocsProject project;
 
+	/**
+	 * Whether the build directory should be emptied.
+	 */
+
+	private boolean clean = true;
+
 	/**
 	 * Creates a new Task instance.
 	 *
@@ -47,10 +53,12 @@ public class CreateBuildDirectoryTask extends DocsRunnable<Boolean> {
 		output("Creating build directory...");
 
 		final File buildDirectory = project.getBuildDirectory();
-		if(buildDirectory.exists() && buildDirectory.isDirectory()) {
-			Utils.deleteDirectory(buildDirectory);
+		final BuildOutput output = project.getBuildOutput();
+		if(!clean && output.isDirectory(buildDirectory)) {
+			return true;
 		}
-		return buildDirectory.mkdirs();
+
+		return output.clear(buildDirectory);
 	}
 
 	/**
@@ -73,4 +81,24 @@ public class CreateBuildDirectoryTask extends DocsRunnable<Boolean> {
 		this.project = project;
 	}
 
+	/**
+	 * Returns whether the build directory should be emptied.
+	 *
+	 * @return Whether the build directory should be emptied.
+	 */
+
+	public final boolean shouldClean() {
+		return clean;
+	}
+
+	/**
+	 * Sets whether the build directory should be emptied.
+	 *
+	 * @param clean Whether the build directory should be emptied.
+	 */
+
+	public final void setShouldClean(final boolean clean) {
+		this.clean = clean;
+	}
+
 }
\ No newline at end of file
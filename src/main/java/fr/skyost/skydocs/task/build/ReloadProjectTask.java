@@ -59,7 +59,7 @@ public class ReloadProjectTask extends DocsRunnable<Boolean> {
 		try {
 			output("Loading project from directory \"" + directory.getName() + "\" and loading theme... ");
 
-			final Utils.Pair<DocsProject, Set<String>> result = DocsProject.loadFromDirectory(directory);
+			final Utils.Pair<DocsProject, Set<String>> result = DocsProject.loadFromDirectory(directory, Math.max(1, command.getArguments().threads), command.getMetrics());
 
 			if(!result.b.isEmpty()) {
 				blankLine();
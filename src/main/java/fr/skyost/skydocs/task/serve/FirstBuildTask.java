@@ -61,6 +61,7 @@ public class FirstBuildTask extends DocsRunnable<DocsServer> {
 			blankLine();
 
 			final DocsServer server = new DocsServer(port, command.getBuildCommand().getProject());
+			server.setRenderer(command.getRenderer());
 			server.start(NanoHTTPD.SOCKET_READ_TIMEOUT, false);
 
 			if(Desktop.isDesktopSupported() && Desktop.getDesktop().isSupported(Desktop.Action.BROWSE)) {
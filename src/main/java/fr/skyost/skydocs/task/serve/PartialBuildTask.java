@@ -0,0 +1,167 @@
+package fr.skyost.skydocs.task.serve;
+
+import com.google.common.io.Files;
+import fr.skyost.skydocs.DocsPage;
+import fr.skyost.skydocs.DocsRunnable;
+import fr.skyost.skydocs.command.BuildCommand;
+import fr.skyost.skydocs.utils.Utils;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The task that allows to rebuild only the pages affected by some modified content files.
+ */
+
+public class PartialBuildTask extends DocsRunnable<Long> {
+
+	/**
+	 * The build command.
+	 */
+
+	private BuildCommand command;
+
+	/**
+	 * The modified files.
+	 */
+
+	private Set<File> changedFiles;
+
+	/**
+	 * Creates a new Task instance.
+	 *
+	 * @param command The build command.
+	 * @param changedFiles The modified files.
+	 */
+
+	public PartialBuildTask(final BuildCommand command, final Set<File> changedFiles) {
+		this(command, changedFiles, System.out);
+	}
+
+	/**
+	 * Creates a new Task instance.
+	 *
+	 * @param command The build command.
+	 * @param changedFiles The modified files.
+	 * @param out The output stream.
+	 */
+
+	public PartialBuildTask(final BuildCommand command, final Set<File> changedFiles, final PrintStream out) {
+		super(out, null);
+
+		this.command = command;
+		this.changedFiles = changedFiles;
+	}
+
+	@Override
+	public final Long execute() {
+		output("Running partial build... ");
+
+		if(!command.isInterrupted()) {
+			command.interrupt();
+		}
+
+		if(shouldReloadProject()) {
+			command.reloadProject();
+		}
+		else {
+			command.setChangedFiles(changedFiles);
+		}
+
+		try {
+			command.run(false);
+		}
+		finally {
+			command.setChangedFiles(null);
+		}
+		return System.currentTimeMillis();
+	}
+
+	/**
+	 * Returns the build command.
+	 *
+	 * @return The build command.
+	 */
+
+	public final BuildCommand getBuildCommand() {
+		return command;
+	}
+
+	/**
+	 * Sets the build command.
+	 *
+	 * @param command The build command.
+	 */
+
+	public final void setBuildCommand(final BuildCommand command) {
+		this.command = command;
+	}
+
+	/**
+	 * Returns the modified files.
+	 *
+	 * @return The modified files.
+	 */
+
+	public final Set<File> getChangedFiles() {
+		return changedFiles;
+	}
+
+	/**
+	 * Sets the modified files.
+	 *
+	 * @param changedFiles The modified files.
+	 */
+
+	public final void setChangedFiles(final Set<File> changedFiles) {
+		this.changedFiles = changedFiles;
+	}
+
+	/**
+	 * Checks whether the project must be reloaded before building.
+	 * This happens when a page is unknown or when its header has changed (title, language, previous or next page, ...).
+	 *
+	 * @return Whether the project must be reloaded.
+	 */
+
+	private boolean shouldReloadProject() {
+		for(final File file : changedFiles) {
+			if(!Files.getFileExtension(file.getName()).equalsIgnoreCase("md")) {
+				continue;
+			}
+
+			final DocsPage page = getPage(file);
+			if(page == null || !file.isFile()) {
+				return true;
+			}
+
+			final Map<String, Object> header = Utils.decodeFileHeader(Utils.separateFileHeader(file)[0]);
+			if(!(header == null ? Collections.emptyMap() : header).equals(page.getHeader())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Gets the page that corresponds to the specified file.
+	 *
+	 * @param file The file.
+	 *
+	 * @return The page (null if not found).
+	 */
+
+	private DocsPage getPage(final File file) {
+		final File absoluteFile = file.getAbsoluteFile();
+		for(final DocsPage page : command.getProject().getPages()) {
+			if(page.getFile().getAbsoluteFile().equals(absoluteFile)) {
+				return page;
+			}
+		}
+		return null;
+	}
+
+}
@@ -0,0 +1,374 @@
+package fr.skyost.skydocs.utils;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Extracts the text of an HTML document in a single pass.
+ * Tags, comments and the content of "script" and "style" elements are skipped, entities are decoded,
+ * block elements are separated by a space and whitespace sequences are collapsed.
+ */
+
+public class HTMLTextExtractor {
+
+	/**
+	 * The Latin-1 entities (from U+00A0 to U+00FF), in order.
+	 */
+
+	private static final String[] LATIN_1_ENTITIES = new String[]{
+			"nbsp", "iexcl", "cent", "pound", "curren", "yen", "brvbar", "sect", "uml", "copy", "ordf", "laquo", "not", "shy", "reg", "macr",
+			"deg", "plusmn", "sup2", "sup3", "acute", "micro", "para", "middot", "cedil", "sup1", "ordm", "raquo", "frac14", "frac12", "frac34", "iquest",
+			"Agrave", "Aacute", "Acirc", "Atilde", "Auml", "Aring", "AElig", "Ccedil", "Egrave", "Eacute", "Ecirc", "Euml", "Igrave", "Iacute", "Icirc", "Iuml",
+			"ETH", "Ntilde", "Ograve", "Oacute", "Ocirc", "Otilde", "Ouml", "times", "Oslash", "Ugrave", "Uacute", "Ucirc", "Uuml", "Yacute", "THORN", "szlig",
+			"agrave", "aacute", "acirc", "atilde", "auml", "aring", "aelig", "ccedil", "egrave", "eacute", "ecirc", "euml", "igrave", "iacute", "icirc", "iuml",
+			"eth", "ntilde", "ograve", "oacute", "ocirc", "otilde", "ouml", "divide", "oslash", "ugrave", "uacute", "ucirc", "uuml", "yacute", "thorn", "yuml"
+	};
+
+	/**
+	 * The supported named entities.
+	 */
+
+	private static final Map<String, Character> ENTITIES = new HashMap<>();
+
+	/**
+	 * The elements that are separated from their surroundings by a space.
+	 */
+
+	private static final Set<String> BLOCK_ELEMENTS = new HashSet<>(Arrays.asList(
+			"address", "article", "aside", "blockquote", "br", "caption", "dd", "details", "div", "dl", "dt", "figcaption", "figure", "footer", "form",
+			"h1", "h2", "h3", "h4", "h5", "h6", "header", "hr", "li", "main", "nav", "ol", "option", "p", "pre", "section", "summary",
+			"table", "tbody", "td", "tfoot", "th", "thead", "tr", "ul"
+	));
+
+	/**
+	 * The elements whose content is not text.
+	 */
+
+	private static final String[] RAW_TEXT_ELEMENTS = new String[]{"script", "style"};
+
+	/**
+	 * The longest supported entity (without "&" and ";").
+	 */
+
+	private static final int MAX_ENTITY_LENGTH = 10;
+
+	static {
+		for(int i = 0; i != LATIN_1_ENTITIES.length; i++) {
+			ENTITIES.put(LATIN_1_ENTITIES[i], (char)(0xA0 + i));
+		}
+		ENTITIES.put("amp", '&');
+		ENTITIES.put("lt", '<');
+		ENTITIES.put("gt", '>');
+		ENTITIES.put("quot", '"');
+		ENTITIES.put("apos", '\'');
+		ENTITIES.put("ndash", '\u2013');
+		ENTITIES.put("mdash", '\u2014');
+		ENTITIES.put("lsquo", '\u2018');
+		ENTITIES.put("rsquo", '\u2019');
+		ENTITIES.put("sbquo", '\u201a');
+		ENTITIES.put("ldquo", '\u201c');
+		ENTITIES.put("rdquo", '\u201d');
+		ENTITIES.put("bdquo", '\u201e');
+		ENTITIES.put("bull", '\u2022');
+		ENTITIES.put("hellip", '\u2026');
+		ENTITIES.put("euro", '\u20ac');
+		ENTITIES.put("trade", '\u2122');
+		ENTITIES.put("larr", '\u2190');
+		ENTITIES.put("rarr", '\u2192');
+		ENTITIES.put("OElig", '\u0152');
+		ENTITIES.put("oelig", '\u0153');
+	}
+
+	/**
+	 * The HTML.
+	 */
+
+	private final String html;
+
+	/**
+	 * The maximum length of the text.
+	 */
+
+	private final int maxLength;
+
+	/**
+	 * The extracted text.
+	 */
+
+	private final StringBuilder text;
+
+	/**
+	 * The current position.
+	 */
+
+	private int position;
+
+	/**
+	 * Whether a space should be written before the next character.
+	 */
+
+	private boolean pendingSpace;
+
+	/**
+	 * Creates a new HTMLTextExtractor instance.
+	 *
+	 * @param html The HTML.
+	 * @param maxLength The maximum length of the text.
+	 */
+
+	private HTMLTextExtractor(final String html, final int maxLength) {
+		this.html = html;
+		this.maxLength = maxLength;
+		this.text = new StringBuilder(Math.min(html.length(), maxLength));
+	}
+
+	/**
+	 * Extracts the text of an HTML document.
+	 *
+	 * @param html The HTML.
+	 *
+	 * @return The text.
+	 */
+
+	public static String extract(final String html) {
+		return extract(html, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Extracts the beginning of the text of an HTML document. The extraction stops as soon as enough characters have been found.
+	 *
+	 * @param html The HTML.
+	 * @param maxLength The maximum length of the text.
+	 *
+	 * @return The text (at most maxLength characters).
+	 */
+
+	public static String extract(final String html, final int maxLength) {
+		final HTMLTextExtractor extractor = new HTMLTextExtractor(html, maxLength);
+		extractor.run();
+
+		final StringBuilder text = extractor.text;
+		if(text.length() > maxLength) {
+			text.setLength(maxLength);
+		}
+		if(text.length() != 0 && text.charAt(text.length() - 1) == ' ') {
+			text.setLength(text.length() - 1);
+		}
+		return text.toString();
+	}
+
+	/**
+	 * Runs the extraction.
+	 */
+
+	private void run() {
+		final int length = html.length();
+		while(position < length && text.length() < maxLength) {
+			final char character = html.charAt(position);
+			if(character == '<') {
+				readMarkup();
+			}
+			else if(character == '&') {
+				readEntity();
+			}
+			else {
+				append(character);
+				position++;
+			}
+		}
+	}
+
+	/**
+	 * Reads a tag, a comment or a declaration. A "<" that does not start any of them is text.
+	 */
+
+	private void readMarkup() {
+		final int start = position + 1;
+		if(start >= html.length()) {
+			append('<');
+			position++;
+			return;
+		}
+
+		final char next = html.charAt(start);
+		if(html.startsWith("!--", start)) {
+			position = skipAfter("-->", start + 3);
+			return;
+		}
+		if(next == '!' || next == '?') {
+			position = skipAfter(">", start);
+			return;
+		}
+
+		final boolean closing = next == '/';
+		final int nameStart = closing ? start + 1 : start;
+		int nameEnd = nameStart;
+		while(nameEnd < html.length() && isNameCharacter(html.charAt(nameEnd))) {
+			nameEnd++;
+		}
+		if(nameEnd == nameStart || !Character.isLetter(html.charAt(nameStart))) {
+			append('<');
+			position++;
+			return;
+		}
+
+		position = skipTag(nameEnd);
+		final String name = html.substring(nameStart, nameEnd).toLowerCase(Locale.ROOT);
+		if(BLOCK_ELEMENTS.contains(name)) {
+			pendingSpace = true;
+		}
+		if(!closing) {
+			for(final String element : RAW_TEXT_ELEMENTS) {
+				if(element.equals(name)) {
+					position = skipRawText(element);
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads an entity. An "&" that does not start a valid entity is text.
+	 */
+
+	private void readEntity() {
+		final int start = position + 1;
+		int end = start;
+		while(end < html.length() && end - start <= MAX_ENTITY_LENGTH && html.charAt(end) != ';') {
+			end++;
+		}
+		if(end == start || end == html.length() || html.charAt(end) != ';') {
+			append('&');
+			position++;
+			return;
+		}
+
+		int codePoint = -1;
+		if(html.charAt(start) == '#') {
+			final boolean hexadecimal = end > start + 1 && (html.charAt(start + 1) == 'x' || html.charAt(start + 1) == 'X');
+			try {
+				codePoint = Integer.parseInt(html.substring(hexadecimal ? start + 2 : start + 1, end), hexadecimal ? 16 : 10);
+				if(codePoint <= 0 || codePoint > Character.MAX_CODE_POINT || (codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE)) {
+					codePoint = 0xFFFD;
+				}
+			}
+			catch(final NumberFormatException ex) {}
+		}
+		else {
+			final Character entity = ENTITIES.get(html.substring(start, end));
+			if(entity != null) {
+				codePoint = entity;
+			}
+		}
+
+		if(codePoint == -1) {
+			append('&');
+			position++;
+			return;
+		}
+		if(Character.isBmpCodePoint(codePoint)) {
+			append((char)codePoint);
+		}
+		else {
+			append(Character.highSurrogate(codePoint));
+			text.append(Character.lowSurrogate(codePoint));
+		}
+		position = end + 1;
+	}
+
+	/**
+	 * Appends a character to the text, collapsing whitespace.
+	 *
+	 * @param character The character.
+	 */
+
+	private void append(final char character) {
+		if(Character.isWhitespace(character) || character == '\u00a0') {
+			pendingSpace = true;
+			return;
+		}
+		if(pendingSpace && text.length() != 0) {
+			text.append(' ');
+			if(text.length() >= maxLength) {
+				return;
+			}
+		}
+		pendingSpace = false;
+		text.append(character);
+	}
+
+	/**
+	 * Returns the position following the end of a tag (quoted attribute values may contain a ">").
+	 *
+	 * @param from The position of the first character after the tag name.
+	 *
+	 * @return The position following the tag.
+	 */
+
+	private int skipTag(int from) {
+		char quote = 0;
+		for(; from < html.length(); from++) {
+			final char character = html.charAt(from);
+			if(quote != 0) {
+				if(character == quote) {
+					quote = 0;
+				}
+			}
+			else if(character == '"' || character == '\'') {
+				quote = character;
+			}
+			else if(character == '>') {
+				return from + 1;
+			}
+		}
+		return from;
+	}
+
+	/**
+	 * Returns the position following the closing tag of a raw text element.
+	 *
+	 * @param element The element name.
+	 *
+	 * @return The position following the closing tag.
+	 */
+
+	private int skipRawText(final String element) {
+		for(int i = html.indexOf("</", position); i != -1; i = html.indexOf("</", i + 2)) {
+			if(html.regionMatches(true, i + 2, element, 0, element.length())) {
+				return skipTag(i + 2 + element.length());
+			}
+		}
+		return html.length();
+	}
+
+	/**
+	 * Returns the position following the next occurrence of a string.
+	 *
+	 * @param string The string.
+	 * @param from The search start.
+	 *
+	 * @return The position following the string (or the end of the HTML if it is not found).
+	 */
+
+	private int skipAfter(final String string, final int from) {
+		final int index = html.indexOf(string, from);
+		return index == -1 ? html.length() : index + string.length();
+	}
+
+	/**
+	 * Checks whether a character can be part of a tag name.
+	 *
+	 * @param character The character.
+	 *
+	 * @return Whether the character can be part of a tag name.
+	 */
+
+	private static boolean isNameCharacter(final char character) {
+		return Character.isLetterOrDigit(character) || character == '-' || character == ':';
+	}
+
+}
@@ -3,17 +3,24 @@ package fr.skyost.skydocs.utils;
 import fr.skyost.skydocs.Constants;
 import org.jtwig.JtwigModel;
 import org.jtwig.JtwigTemplate;
+import org.jtwig.environment.Environment;
 import org.jtwig.environment.EnvironmentConfiguration;
 import org.jtwig.environment.EnvironmentConfigurationBuilder;
 import org.jtwig.functions.FunctionRequest;
 import org.jtwig.functions.JtwigFunction;
 import org.jtwig.functions.SimpleJtwigFunction;
+import org.jtwig.model.tree.Node;
+import org.jtwig.renderable.StringBuilderRenderResult;
+import org.jtwig.resource.reference.ResourceReference;
+import org.jtwig.value.context.ValueContext;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -36,7 +43,7 @@ public class IncludeFileFunction extends SimpleJtwigFunction {
 	private final File directory;
 	
 	/**
-	 * The current jtwig model.
+	 * The current jtwig model (if null, files are rendered with the variables of the template that calls this function).
 	 */
 	
 	private JtwigModel model;
@@ -53,11 +60,17 @@ public class IncludeFileFunction extends SimpleJtwigFunction {
 	
 	private final JtwigFunction[] functions;
 	
+	/**
+	 * Files that have been included by this function.
+	 */
+	
+	private final Set<File> includedFiles = Collections.synchronizedSet(new HashSet<>());
+	
 	/**
 	 * Creates a new IncludeFileFunction instance.
 	 * 
 	 * @param directory Where to find files.
-	 * @param model The jtwig model.
+	 * @param model The jtwig model (if null, files are rendered with the variables of the template that calls this function).
 	 * @param functions The functions (used to render).
 	 */
 	
@@ -69,7 +82,7 @@ public class IncludeFileFunction extends SimpleJtwigFunction {
 	 * Creates a new IncludeFileFunction instance.
 	 * 
 	 * @param directory Where to find files.
-	 * @param model The jtwig model.
+	 * @param model The jtwig model (if null, files are rendered with the variables of the template that calls this function).
 	 * @param render If the file should be entirely rendered.
 	 * @param functions The functions (used to render).
 	 */
@@ -97,9 +110,14 @@ public class IncludeFileFunction extends SimpleJtwigFunction {
 			if(!file.exists() || !file.isFile()) {
 				return "Incorrect path given : " + directory.getPath() + fileName;
 			}
+			includedFiles.add(file);
+			collectIncludedFile(functionRequest, file);
 			if(!render) {
 				return renderIncludeFile(file);
 			}
+			if(model == null) {
+				return renderInCurrentContext(functionRequest, file);
+			}
 			final EnvironmentConfiguration configuration = EnvironmentConfigurationBuilder.configuration().functions().add(this).add(Arrays.asList(functions)).and().build();
 			return JtwigTemplate.fileTemplate(file, configuration).render(model);
 		}
@@ -109,6 +127,49 @@ public class IncludeFileFunction extends SimpleJtwigFunction {
 		}
 	}
 	
+	/**
+	 * Adds a file to the collection held by the included files variable of the template that is currently rendered (if any).
+	 * This allows a single function to be shared by concurrent renders, each of them knowing exactly what it has included.
+	 * 
+	 * @param functionRequest The current function request.
+	 * @param file The included file.
+	 */
+	
+	@SuppressWarnings("unchecked")
+	private void collectIncludedFile(final FunctionRequest functionRequest, final File file) {
+		if(!functionRequest.getRenderContext().hasCurrent(ValueContext.class)) {
+			return;
+		}
+		final Object collector = functionRequest.getRenderContext().getCurrent(ValueContext.class).resolve(Constants.VARIABLE_INCLUDED_FILES);
+		if(collector instanceof Collection) {
+			((Collection<File>)collector).add(file);
+		}
+	}
+	
+	/**
+	 * Renders a file with the environment and the variables of the template that is currently rendered.
+	 * This allows a single compiled template to be rendered with different models.
+	 * 
+	 * @param functionRequest The current function request.
+	 * @param file File to render.
+	 * 
+	 * @return The rendered file.
+	 */
+	
+	private String renderInCurrentContext(final FunctionRequest functionRequest, final File file) {
+		final Environment environment = functionRequest.getEnvironment();
+		final ResourceReference reference = ResourceReference.file(file);
+		final Node node = environment.getParser().parse(environment, reference);
+		
+		functionRequest.getRenderContext().start(ResourceReference.class, reference);
+		try {
+			return environment.getRenderEnvironment().getRenderNodeService().render(functionRequest, node).appendTo(new StringBuilderRenderResult()).content();
+		}
+		finally {
+			functionRequest.getRenderContext().end(ResourceReference.class);
+		}
+	}
+	
 	/**
 	 * Gets the current model.
 	 * 
@@ -129,6 +190,16 @@ public class IncludeFileFunction extends SimpleJtwigFunction {
 		this.model = model;
 	}
 	
+	/**
+	 * Gets the files that have been included by this function.
+	 * 
+	 * @return The included files.
+	 */
+	
+	public final Set<File> getIncludedFiles() {
+		return includedFiles;
+	}
+	
 	/**
 	 * Renders a String but process only include file functions.
 	 * 
@@ -140,7 +211,7 @@ public class IncludeFileFunction extends SimpleJtwigFunction {
 	 */
 	
 	public final String renderIncludeFile(final File file) throws IOException {
-		return renderIncludeFile(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+		return renderIncludeFile(SeparatedFile.decode(file).toString());
 	}
 	
 	/**
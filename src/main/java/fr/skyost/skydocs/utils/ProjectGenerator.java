@@ -0,0 +1,642 @@
+package fr.skyost.skydocs.utils;
+
+import fr.skyost.skydocs.Constants;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+
+/**
+ * Generates a synthetic project that can be used to load-test builds.
+ * The same seed and the same settings always produce the same project.
+ */
+
+public class ProjectGenerator {
+
+	/**
+	 * The directory where included files are written (relative to the content directory).
+	 */
+
+	public static final String INCLUDES_DIRECTORY = "_includes";
+
+	/**
+	 * The directory where generated assets are written (relative to the theme assets directory).
+	 */
+
+	public static final String ASSETS_DIRECTORY = "generated";
+
+	/**
+	 * The generated languages (other languages are named "l" followed by their index).
+	 */
+
+	private static final String[] LANGUAGES = new String[]{"en", "fr", "de", "es", "it", "pt", "nl", "ja", "zh", "ru"};
+
+	/**
+	 * The project directory.
+	 */
+
+	private File directory;
+
+	/**
+	 * The seed of the random generator.
+	 */
+
+	private long seed;
+
+	/**
+	 * The total number of pages.
+	 */
+
+	private int pages = 100;
+
+	/**
+	 * The number of languages (pages are evenly spread across languages).
+	 */
+
+	private int languages = 1;
+
+	/**
+	 * The number of pages per content sub-directory (0 to write every page of a language in the same directory).
+	 */
+
+	private int pagesPerDirectory = 0;
+
+	/**
+	 * The number of additional front-matter keys per page.
+	 */
+
+	private int headerSize = 0;
+
+	/**
+	 * The number of paragraphs per page.
+	 */
+
+	private int paragraphs = 40;
+
+	/**
+	 * The number of root menu entries.
+	 */
+
+	private int menuRootEntries = 10;
+
+	/**
+	 * The number of children of each menu entry.
+	 */
+
+	private int menuFanOut = 3;
+
+	/**
+	 * The menu depth.
+	 */
+
+	private int menuDepth = 3;
+
+	/**
+	 * The include depth (number of nested includeFile calls per page).
+	 */
+
+	private int includeDepth = 2;
+
+	/**
+	 * The number of generated assets.
+	 */
+
+	private int assets = 0;
+
+	/**
+	 * The approximate size of each generated asset (in bytes).
+	 */
+
+	private int assetSize = 4096;
+
+	/**
+	 * The random generator.
+	 */
+
+	private Random random;
+
+	/**
+	 * Creates a new ProjectGenerator instance.
+	 *
+	 * @param directory The project directory.
+	 * @param seed The seed of the random generator.
+	 */
+
+	public ProjectGenerator(final File directory, final long seed) {
+		this.directory = directory;
+		this.seed = seed;
+	}
+
+	/**
+	 * Writes the project.
+	 *
+	 * @return The project directory.
+	 *
+	 * @throws IOException If any exception occurs while writing the project.
+	 * @throws URISyntaxException If the default theme cannot be located (only when assets are generated).
+	 */
+
+	public final File generate() throws IOException, URISyntaxException {
+		random = new Random(seed);
+
+		final int languages = Math.max(1, this.languages);
+		final File contentDirectory = new File(directory, Constants.FILE_CONTENT_DIRECTORY);
+		final File includesDirectory = new File(contentDirectory, INCLUDES_DIRECTORY);
+		includesDirectory.mkdirs();
+
+		write(new File(directory, Constants.FILE_PROJECT_DATA), Constants.KEY_PROJECT_NAME + ": Synthetic project\n" + Constants.KEY_PROJECT_DESCRIPTION + ": Generated project (" + pages + " pages, " + languages + " languages, seed " + seed + ").\n" + Constants.KEY_PROJECT_URL + ": https://example.com\n\n" + Constants.KEY_PROJECT_LANGUAGE + ": " + getLanguage(0) + "\n" + Constants.KEY_PROJECT_ENABLE_LUNR + ": true\n" + Constants.KEY_PROJECT_DEFAULT_ORDER_ALPHABETICAL + ": true\n");
+
+		for(int i = 0; i != includeDepth; i++) {
+			final StringBuilder include = new StringBuilder();
+			include.append("Included part **").append(i).append("** of the page {{ page.getTitle }}.\n\n");
+			if(i + 1 < includeDepth) {
+				include.append("{{ includeFile('").append(INCLUDES_DIRECTORY).append("/part-").append(i + 1).append(".txt') }}\n");
+			}
+			write(new File(includesDirectory, "part-" + i + ".txt"), include.toString());
+		}
+
+		for(int language = 0; language != languages; language++) {
+			final String name = getLanguage(language);
+			final int count = pages / languages + (language < pages % languages ? 1 : 0);
+			write(new File(directory, Constants.FILE_MENU_PREFIX + (language == 0 ? "" : "-" + name) + Constants.FILE_MENU_SUFFIX), createMenu(name, language != 0, count));
+
+			final File languageDirectory = new File(contentDirectory, name);
+			for(int i = 0; i != count; i++) {
+				final File file = new File(languageDirectory, getPagePath(i) + ".md");
+				file.getParentFile().mkdirs();
+				write(file, createPage(name, i, count));
+			}
+		}
+
+		if(assets > 0) {
+			writeAssets();
+		}
+		return directory;
+	}
+
+	/**
+	 * Returns the project directory.
+	 *
+	 * @return The project directory.
+	 */
+
+	public final File getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * Sets the project directory.
+	 *
+	 * @param directory The project directory.
+	 */
+
+	public final void setDirectory(final File directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * Returns the seed of the random generator.
+	 *
+	 * @return The seed of the random generator.
+	 */
+
+	public final long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Sets the seed of the random generator.
+	 *
+	 * @param seed The seed of the random generator.
+	 */
+
+	public final void setSeed(final long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * Returns the total number of pages.
+	 *
+	 * @return The total number of pages.
+	 */
+
+	public final int getPages() {
+		return pages;
+	}
+
+	/**
+	 * Sets the total number of pages.
+	 *
+	 * @param pages The total number of pages.
+	 */
+
+	public final void setPages(final int pages) {
+		this.pages = pages;
+	}
+
+	/**
+	 * Returns the number of languages.
+	 *
+	 * @return The number of languages.
+	 */
+
+	public final int getLanguages() {
+		return languages;
+	}
+
+	/**
+	 * Sets the number of languages.
+	 *
+	 * @param languages The number of languages.
+	 */
+
+	public final void setLanguages(final int languages) {
+		this.languages = languages;
+	}
+
+	/**
+	 * Returns the number of pages per content sub-directory.
+	 *
+	 * @return The number of pages per content sub-directory (0 if every page of a language is in the same directory).
+	 */
+
+	public final int getPagesPerDirectory() {
+		return pagesPerDirectory;
+	}
+
+	/**
+	 * Sets the number of pages per content sub-directory.
+	 *
+	 * @param pagesPerDirectory The number of pages per content sub-directory (0 to write every page of a language in the same directory).
+	 */
+
+	public final void setPagesPerDirectory(final int pagesPerDirectory) {
+		this.pagesPerDirectory = pagesPerDirectory;
+	}
+
+	/**
+	 * Returns the number of additional front-matter keys per page.
+	 *
+	 * @return The number of additional front-matter keys per page.
+	 */
+
+	public final int getHeaderSize() {
+		return headerSize;
+	}
+
+	/**
+	 * Sets the number of additional front-matter keys per page.
+	 *
+	 * @param headerSize The number of additional front-matter keys per page.
+	 */
+
+	public final void setHeaderSize(final int headerSize) {
+		this.headerSize = headerSize;
+	}
+
+	/**
+	 * Returns the number of paragraphs per page.
+	 *
+	 * @return The number of paragraphs per page.
+	 */
+
+	public final int getParagraphs() {
+		return paragraphs;
+	}
+
+	/**
+	 * Sets the number of paragraphs per page.
+	 *
+	 * @param paragraphs The number of paragraphs per page.
+	 */
+
+	public final void setParagraphs(final int paragraphs) {
+		this.paragraphs = paragraphs;
+	}
+
+	/**
+	 * Returns the number of root menu entries.
+	 *
+	 * @return The number of root menu entries.
+	 */
+
+	public final int getMenuRootEntries() {
+		return menuRootEntries;
+	}
+
+	/**
+	 * Sets the number of root menu entries.
+	 *
+	 * @param menuRootEntries The number of root menu entries.
+	 */
+
+	public final void setMenuRootEntries(final int menuRootEntries) {
+		this.menuRootEntries = menuRootEntries;
+	}
+
+	/**
+	 * Returns the number of children of each menu entry.
+	 *
+	 * @return The number of children of each menu entry.
+	 */
+
+	public final int getMenuFanOut() {
+		return menuFanOut;
+	}
+
+	/**
+	 * Sets the number of children of each menu entry.
+	 *
+	 * @param menuFanOut The number of children of each menu entry.
+	 */
+
+	public final void setMenuFanOut(final int menuFanOut) {
+		this.menuFanOut = menuFanOut;
+	}
+
+	/**
+	 * Returns the menu depth.
+	 *
+	 * @return The menu depth.
+	 */
+
+	public final int getMenuDepth() {
+		return menuDepth;
+	}
+
+	/**
+	 * Sets the menu depth.
+	 *
+	 * @param menuDepth The menu depth.
+	 */
+
+	public final void setMenuDepth(final int menuDepth) {
+		this.menuDepth = menuDepth;
+	}
+
+	/**
+	 * Returns the include depth.
+	 *
+	 * @return The include depth.
+	 */
+
+	public final int getIncludeDepth() {
+		return includeDepth;
+	}
+
+	/**
+	 * Sets the include depth (number of nested includeFile calls per page).
+	 *
+	 * @param includeDepth The include depth.
+	 */
+
+	public final void setIncludeDepth(final int includeDepth) {
+		this.includeDepth = includeDepth;
+	}
+
+	/**
+	 * Returns the number of generated assets.
+	 *
+	 * @return The number of generated assets.
+	 */
+
+	public final int getAssets() {
+		return assets;
+	}
+
+	/**
+	 * Sets the number of generated assets.
+	 *
+	 * @param assets The number of generated assets.
+	 */
+
+	public final void setAssets(final int assets) {
+		this.assets = assets;
+	}
+
+	/**
+	 * Returns the approximate size of each generated asset.
+	 *
+	 * @return The approximate size of each generated asset (in bytes).
+	 */
+
+	public final int getAssetSize() {
+		return assetSize;
+	}
+
+	/**
+	 * Sets the approximate size of each generated asset.
+	 *
+	 * @param assetSize The approximate size of each generated asset (in bytes).
+	 */
+
+	public final void setAssetSize(final int assetSize) {
+		this.assetSize = assetSize;
+	}
+
+	/**
+	 * Creates the content of a page.
+	 *
+	 * @param language The page language.
+	 * @param index The page index.
+	 * @param count The number of pages of this language.
+	 *
+	 * @return The page content.
+	 */
+
+	private String createPage(final String language, final int index, final int count) {
+		final String root = pagesPerDirectory > 0 ? "../" : "";
+		final StringBuilder builder = new StringBuilder();
+		builder.append(Constants.HEADER_MARK).append('\n');
+		builder.append(Constants.KEY_HEADER_TITLE).append(": Page ").append(index).append('\n');
+		builder.append(Constants.KEY_HEADER_LANGUAGE).append(": ").append(language).append('\n');
+		for(int i = 0; i != headerSize; i++) {
+			builder.append("key_").append(i).append(": '").append(createSentence()).append("'\n");
+		}
+		builder.append(Constants.HEADER_MARK).append('\n');
+		builder.append("# Page ").append(index).append("\n\n");
+
+		for(int i = 0; i != paragraphs; i++) {
+			switch(i % 4) {
+			case 0:
+				builder.append("## Section ").append(i).append("\n\n");
+				builder.append(createSentence()).append(' ').append(createSentence()).append("\n\n");
+				break;
+			case 1:
+				builder.append("* ").append(createSentence()).append('\n');
+				builder.append("* ").append(createSentence()).append('\n');
+				builder.append("* [Link to another page](").append(root).append(getPagePath(random.nextInt(count))).append(".html)\n\n");
+				break;
+			case 2:
+				builder.append("| Name | Value |\n| --- | --- |\n");
+				builder.append("| ").append(createWord()).append(" | ").append(random.nextInt(1000)).append(" |\n\n");
+				break;
+			default:
+				builder.append("```java\nfinal String value = \"").append(createWord()).append("\";\n```\n\n");
+				break;
+			}
+		}
+
+		if(includeDepth > 0) {
+			builder.append("{{ includeFile('").append(INCLUDES_DIRECTORY).append("/part-0.txt') }}\n");
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Creates the menu of a language.
+	 *
+	 * @param language The language.
+	 * @param header Whether the language should be written in the menu header.
+	 * @param count The number of pages of this language.
+	 *
+	 * @return The menu (YAML).
+	 */
+
+	private String createMenu(final String language, final boolean header, final int count) {
+		final StringBuilder builder = new StringBuilder();
+		if(header) {
+			builder.append(Constants.HEADER_MARK).append('\n');
+			builder.append(Constants.KEY_HEADER_LANGUAGE).append(": ").append(language).append('\n');
+			builder.append(Constants.HEADER_MARK).append('\n');
+		}
+
+		final int entries = Math.min(count, menuRootEntries);
+		for(int i = 0; i != entries; i++) {
+			appendMenuEntry(builder, "", i, 1, count);
+		}
+		if(entries == 0) {
+			builder.append("[]\n");
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Appends a menu entry and its children.
+	 *
+	 * @param builder The menu builder.
+	 * @param indent The indentation.
+	 * @param weight The entry weight.
+	 * @param depth The entry depth.
+	 * @param count The number of pages of the menu language.
+	 */
+
+	private void appendMenuEntry(final StringBuilder builder, final String indent, final int weight, final int depth, final int count) {
+		builder.append(indent).append("- ").append(Constants.KEY_MENU_TITLE).append(": 'Entry ").append(depth).append('-').append(weight).append("'\n");
+		builder.append(indent).append("  ").append(Constants.KEY_MENU_LINK).append(": '").append(getPagePath(random.nextInt(Math.max(1, count)))).append(".html'\n");
+		builder.append(indent).append("  ").append(Constants.KEY_MENU_WEIGHT).append(": ").append(weight).append('\n');
+		if(depth < menuDepth && menuFanOut > 0) {
+			builder.append(indent).append("  ").append(Constants.KEY_MENU_CHILDREN).append(":\n");
+			for(int i = 0; i != menuFanOut; i++) {
+				appendMenuEntry(builder, indent + "    ", i, depth + 1, count);
+			}
+		}
+	}
+
+	/**
+	 * Writes the generated assets in the theme directory (the default theme is extracted first if needed).
+	 *
+	 * @throws IOException If any exception occurs while writing the assets.
+	 * @throws URISyntaxException If the default theme cannot be located.
+	 */
+
+	private void writeAssets() throws IOException, URISyntaxException {
+		final File themeDirectory = new File(directory, Constants.FILE_THEME_DIRECTORY);
+		if(!themeDirectory.exists() || !themeDirectory.isDirectory()) {
+			themeDirectory.mkdir();
+			Utils.extract(Constants.RESOURCE_DEFAULT_THEME_PATH, Constants.RESOURCE_DEFAULT_THEME_DIRECTORY, themeDirectory);
+		}
+
+		final File assetsDirectory = new File(themeDirectory, Constants.FILE_ASSETS_DIRECTORY + File.separator + ASSETS_DIRECTORY);
+		assetsDirectory.mkdirs();
+		for(int i = 0; i != assets; i++) {
+			final boolean css = i % 2 == 0;
+			final StringBuilder builder = new StringBuilder();
+			int rule = 0;
+			while(builder.length() < assetSize) {
+				if(css) {
+					builder.append(".asset-").append(i).append('-').append(rule).append(" {\n\tcolor: #").append(Integer.toHexString(0x100000 + random.nextInt(0xEFFFFF))).append(";\n\tmargin: ").append(random.nextInt(32)).append("px;\n}\n\n");
+				}
+				else {
+					builder.append("function ").append(createWord()).append(rule).append("(value) {\n\tvar result = value * ").append(random.nextInt(100)).append(";\n\treturn result + \"").append(createWord()).append("\";\n}\n\n");
+				}
+				rule++;
+			}
+			write(new File(assetsDirectory, "asset-" + i + (css ? ".css" : ".js")), builder.toString());
+		}
+	}
+
+	/**
+	 * Creates a random sentence.
+	 *
+	 * @return The sentence.
+	 */
+
+	private String createSentence() {
+		final StringBuilder builder = new StringBuilder();
+		final int words = 8 + random.nextInt(12);
+		for(int i = 0; i != words; i++) {
+			if(i != 0) {
+				builder.append(' ');
+			}
+			builder.append(createWord());
+		}
+		return builder.append('.').toString();
+	}
+
+	/**
+	 * Creates a random word.
+	 *
+	 * @return The word.
+	 */
+
+	private String createWord() {
+		final char[] word = new char[3 + random.nextInt(7)];
+		for(int i = 0; i != word.length; i++) {
+			word[i] = (char)('a' + random.nextInt(26));
+		}
+		return new String(word);
+	}
+
+	/**
+	 * Returns the path of a page (relative to its language directory, without extension).
+	 *
+	 * @param index The page index.
+	 *
+	 * @return The page path.
+	 */
+
+	private String getPagePath(final int index) {
+		final String name = "page-" + index;
+		return pagesPerDirectory > 0 ? "section-" + (index / pagesPerDirectory) + "/" + name : name;
+	}
+
+	/**
+	 * Returns the name of a generated language.
+	 *
+	 * @param index The language index.
+	 *
+	 * @return The language name.
+	 */
+
+	private static String getLanguage(final int index) {
+		return index < LANGUAGES.length ? LANGUAGES[index] : "l" + index;
+	}
+
+	/**
+	 * Writes a file.
+	 *
+	 * @param file The file.
+	 * @param content The content.
+	 *
+	 * @throws IOException If any exception occurs while writing the file.
+	 */
+
+	private static void write(final File file, final String content) throws IOException {
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+	}
+
+}
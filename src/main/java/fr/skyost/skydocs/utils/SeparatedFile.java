@@ -0,0 +1,248 @@
+package fr.skyost.skydocs.utils;
+
+import fr.skyost.skydocs.Constants;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Represents a file whose header has been separated from its content.
+ * The file is decoded once and both parts are slices of the same buffer (original line endings are preserved).
+ */
+
+public class SeparatedFile {
+
+	/**
+	 * The header (null if there is no header).
+	 */
+
+	private final CharSequence header;
+
+	/**
+	 * The content.
+	 */
+
+	private final CharSequence content;
+
+	/**
+	 * Creates a new SeparatedFile instance.
+	 *
+	 * @param header The header (null if there is no header).
+	 * @param content The content.
+	 */
+
+	private SeparatedFile(final CharSequence header, final CharSequence content) {
+		this.header = header;
+		this.content = content;
+	}
+
+	/**
+	 * Reads a file and separates its header from its content.
+	 *
+	 * @param file The file.
+	 *
+	 * @return The separated file.
+	 *
+	 * @throws IOException If any exception occurs while reading the file.
+	 */
+
+	public static SeparatedFile read(final File file) throws IOException {
+		return parse(decode(file));
+	}
+
+	/**
+	 * Separates the header of the specified buffer from its content.
+	 *
+	 * @param buffer The buffer.
+	 *
+	 * @return The separated file (header and content are slices of the buffer).
+	 */
+
+	public static SeparatedFile parse(final CharBuffer buffer) {
+		final int length = buffer.length();
+		final int firstLineEnd = lineEnd(buffer, 0);
+		if(!isHeaderMark(buffer, 0, firstLineEnd)) {
+			return new SeparatedFile(null, buffer);
+		}
+
+		final int headerStart = nextLineStart(buffer, firstLineEnd);
+		int lineStart = headerStart;
+		while(lineStart < length) {
+			final int lineEnd = lineEnd(buffer, lineStart);
+			if(isHeaderMark(buffer, lineStart, lineEnd)) {
+				final int headerEnd = Math.max(headerStart, previousLineEnd(buffer, lineStart));
+				return new SeparatedFile(slice(buffer, headerStart, headerEnd), slice(buffer, nextLineStart(buffer, lineEnd), length));
+			}
+			lineStart = nextLineStart(buffer, lineEnd);
+		}
+		return new SeparatedFile(null, buffer);
+	}
+
+	/**
+	 * Reads and decodes a file (UTF-8) into a single buffer.
+	 *
+	 * @param file The file.
+	 *
+	 * @return The decoded buffer.
+	 *
+	 * @throws IOException If any exception occurs while reading the file.
+	 */
+
+	public static CharBuffer decode(final File file) throws IOException {
+		return StandardCharsets.UTF_8.decode(ByteBuffer.wrap(Files.readAllBytes(file.toPath())));
+	}
+
+	/**
+	 * Returns whether this file has a header.
+	 *
+	 * @return Whether this file has a header.
+	 */
+
+	public final boolean hasHeader() {
+		return header != null;
+	}
+
+	/**
+	 * Returns the header.
+	 *
+	 * @return The header (null if there is no header).
+	 */
+
+	public final CharSequence getHeader() {
+		return header;
+	}
+
+	/**
+	 * Returns the content.
+	 *
+	 * @return The content.
+	 */
+
+	public final CharSequence getContent() {
+		return content;
+	}
+
+	/**
+	 * Returns the header as a String.
+	 *
+	 * @return The header (null if there is no header).
+	 */
+
+	public final String getHeaderString() {
+		return header == null ? null : header.toString();
+	}
+
+	/**
+	 * Returns the content as a String.
+	 *
+	 * @return The content.
+	 */
+
+	public final String getContentString() {
+		return content.toString();
+	}
+
+	/**
+	 * Returns the index of the end of the line that starts at the specified index (line terminator excluded).
+	 *
+	 * @param buffer The buffer.
+	 * @param start The line start.
+	 *
+	 * @return The line end.
+	 */
+
+	private static int lineEnd(final CharBuffer buffer, final int start) {
+		final int length = buffer.length();
+		int i = start;
+		while(i < length) {
+			final char c = buffer.charAt(i);
+			if(c == '\n' || c == '\r') {
+				break;
+			}
+			i++;
+		}
+		return i;
+	}
+
+	/**
+	 * Returns the index of the start of the next line.
+	 *
+	 * @param buffer The buffer.
+	 * @param lineEnd The end of the current line (line terminator excluded).
+	 *
+	 * @return The start of the next line.
+	 */
+
+	private static int nextLineStart(final CharBuffer buffer, final int lineEnd) {
+		final int length = buffer.length();
+		if(lineEnd >= length) {
+			return length;
+		}
+		if(buffer.charAt(lineEnd) == '\r' && lineEnd + 1 < length && buffer.charAt(lineEnd + 1) == '\n') {
+			return lineEnd + 2;
+		}
+		return lineEnd + 1;
+	}
+
+	/**
+	 * Returns the index of the end of the previous line (line terminator excluded).
+	 *
+	 * @param buffer The buffer.
+	 * @param lineStart The start of the current line.
+	 *
+	 * @return The end of the previous line.
+	 */
+
+	private static int previousLineEnd(final CharBuffer buffer, final int lineStart) {
+		int i = lineStart - 1;
+		if(i >= 0 && buffer.charAt(i) == '\n') {
+			i--;
+		}
+		if(i >= 0 && buffer.charAt(i) == '\r') {
+			i--;
+		}
+		return i + 1;
+	}
+
+	/**
+	 * Returns whether the specified line is a header mark.
+	 *
+	 * @param buffer The buffer.
+	 * @param start The line start.
+	 * @param end The line end.
+	 *
+	 * @return Whether the specified line is a header mark.
+	 */
+
+	private static boolean isHeaderMark(final CharBuffer buffer, final int start, final int end) {
+		final String mark = Constants.HEADER_MARK;
+		if(end - start != mark.length()) {
+			return false;
+		}
+		for(int i = 0; i != mark.length(); i++) {
+			if(buffer.charAt(start + i) != mark.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Creates a slice of the specified buffer (no character is copied).
+	 *
+	 * @param buffer The buffer.
+	 * @param start The slice start.
+	 * @param end The slice end.
+	 *
+	 * @return The slice.
+	 */
+
+	private static CharBuffer slice(final CharBuffer buffer, final int start, final int end) {
+		return buffer.subSequence(start, end);
+	}
+
+}
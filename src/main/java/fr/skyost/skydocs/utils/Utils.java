@@ -2,11 +2,9 @@ package fr.skyost.skydocs.utils;
 
 import fr.skyost.skydocs.Constants;
 import fr.skyost.skydocs.SkyDocs;
-import org.yaml.snakeyaml.Yaml;
 
 import java.io.*;
 import java.net.URISyntaxException;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.Enumeration;
 import java.util.List;
@@ -149,28 +147,8 @@ public class Utils {
 	
 	public static String[] separateFileHeader(final File file) {
 		try {
-			final List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
-			if(lines.isEmpty()) {
-				return new String[]{null, ""};
-			}
-			if(!lines.get(0).equals(Constants.HEADER_MARK)) {
-				return new String[]{null, Utils.join(LINE_SEPARATOR, lines)};
-			}
-			int headerLimit = -1;
-			for(int i = 0; i != lines.size(); i++) {
-				if(i != 0 && lines.get(i).equals(Constants.HEADER_MARK)) {
-					headerLimit = i;
-					break;
-				}
-			}
-			if(headerLimit == -1) {
-				return new String[]{null, Utils.join(LINE_SEPARATOR, lines)};
-			}
-			
-			return new String[]{
-					Utils.join(LINE_SEPARATOR, lines.subList(1, headerLimit)),
-					Utils.join(LINE_SEPARATOR, lines.subList(headerLimit + 1, lines.size()))
-			};
+			final SeparatedFile separatedFile = SeparatedFile.read(file);
+			return new String[]{separatedFile.getHeaderString(), separatedFile.getContentString()};
 		}
 		catch(final Exception ex) {
 			ex.printStackTrace();
@@ -186,13 +164,11 @@ public class Utils {
 	 * @return A map representing the YAML content key : value.
 	 */
 	
-	@SuppressWarnings("unchecked")
 	public static Map<String, Object> decodeFileHeader(final String header) {
 		if(header == null) {
 			return null;
 		}
-		final Yaml yaml = new Yaml();
-		return (Map<String, Object>)yaml.load(header);
+		return YAMLDecoder.decodeMap(header);
 	}
 	
 	/**
@@ -294,10 +270,27 @@ public class Utils {
 	 * @param string The String.
 	 * 
 	 * @return The String without HTML.
+	 * 
+	 * @see HTMLTextExtractor
 	 */
 	
 	public static String stripHTML(final String string) {
-		return string.replaceAll("<.*?>", "").replace("\n", "").replace("\r", "");
+		return HTMLTextExtractor.extract(string);
+	}
+	
+	/**
+	 * Strips HTML from a String, stopping as soon as enough characters have been found.
+	 * 
+	 * @param string The String.
+	 * @param maxLength The maximum length of the result.
+	 * 
+	 * @return The beginning of the String without HTML.
+	 * 
+	 * @see HTMLTextExtractor
+	 */
+	
+	public static String stripHTML(final String string, final int maxLength) {
+		return HTMLTextExtractor.extract(string, maxLength);
 	}
 	
 	/**
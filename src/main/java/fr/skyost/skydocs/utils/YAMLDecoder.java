@@ -0,0 +1,204 @@
+package fr.skyost.skydocs.utils;
+
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.nodes.NodeId;
+import org.yaml.snakeyaml.nodes.Tag;
+import org.yaml.snakeyaml.resolver.Resolver;
+
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Decodes YAML documents (project data, menus and page headers).
+ * SnakeYAML instances are expensive to create, so each thread reuses its own instance (they are not thread-safe).
+ * Headers that only contain "key: value" lines with plain scalar values are decoded without SnakeYAML.
+ */
+
+public class YAMLDecoder {
+
+	/**
+	 * The SnakeYAML instance of each thread.
+	 */
+
+	private static final ThreadLocal<Yaml> YAML = ThreadLocal.withInitial(Yaml::new);
+
+	/**
+	 * Resolves the type of plain scalars (the same way SnakeYAML does).
+	 */
+
+	private static final Resolver RESOLVER = new Resolver();
+
+	/**
+	 * A key that can be decoded without SnakeYAML.
+	 */
+
+	private static final Pattern SIMPLE_KEY = Pattern.compile("[A-Za-z_][A-Za-z0-9_.-]*");
+
+	/**
+	 * An integer that can be decoded without SnakeYAML (other integer formats, like octal or hexadecimal ones, are left to SnakeYAML).
+	 */
+
+	private static final Pattern SIMPLE_INTEGER = Pattern.compile("-?(?:0|[1-9][0-9]*)");
+
+	/**
+	 * The characters that cannot start a plain scalar.
+	 */
+
+	private static final String INDICATORS = "-?:,[]{}#&*!|>'\"%@`";
+
+	/**
+	 * Loads a YAML document.
+	 *
+	 * @param yaml The YAML document.
+	 * @param <T> The document type.
+	 *
+	 * @return The document.
+	 */
+
+	public static <T> T load(final String yaml) {
+		return YAML.get().load(yaml);
+	}
+
+	/**
+	 * Loads a YAML document.
+	 *
+	 * @param input The YAML document stream.
+	 * @param <T> The document type.
+	 *
+	 * @return The document.
+	 */
+
+	public static <T> T load(final InputStream input) {
+		return YAML.get().load(input);
+	}
+
+	/**
+	 * Decodes a YAML mapping (like a page header).
+	 *
+	 * @param yaml The YAML mapping.
+	 *
+	 * @return A map representing the YAML content key : value.
+	 */
+
+	@SuppressWarnings("unchecked")
+	public static Map<String, Object> decodeMap(final String yaml) {
+		final Map<String, Object> map = decodeSimpleMap(yaml);
+		return map == null ? (Map<String, Object>)load(yaml) : map;
+	}
+
+	/**
+	 * Decodes a YAML mapping if it only contains "key: value" lines (and comments), with plain scalar values
+	 * that are strings, decimal integers, booleans or nulls.
+	 *
+	 * @param yaml The YAML mapping.
+	 *
+	 * @return A map representing the YAML content key : value, or null if SnakeYAML is needed.
+	 */
+
+	private static Map<String, Object> decodeSimpleMap(final String yaml) {
+		final Map<String, Object> map = new LinkedHashMap<>();
+		int start = 0;
+		while(start < yaml.length()) {
+			int end = yaml.indexOf('\n', start);
+			if(end == -1) {
+				end = yaml.length();
+			}
+			final String line = yaml.substring(start, end > start && yaml.charAt(end - 1) == '\r' ? end - 1 : end);
+			start = end + 1;
+
+			if(line.trim().isEmpty() || line.charAt(0) == '#') {
+				continue;
+			}
+			if(Character.isWhitespace(line.charAt(0))) {
+				return null;
+			}
+
+			final int separator = line.indexOf(": ");
+			if(separator == -1) {
+				return null;
+			}
+			final String key = line.substring(0, separator);
+			if(!SIMPLE_KEY.matcher(key).matches() || !Tag.STR.equals(RESOLVER.resolve(NodeId.scalar, key, true))) {
+				return null;
+			}
+			final String value = line.substring(separator + 2).trim();
+			if(!isSimpleScalar(value)) {
+				return null;
+			}
+
+			final Tag tag = RESOLVER.resolve(NodeId.scalar, value, true);
+			if(Tag.STR.equals(tag)) {
+				map.put(key, value);
+			}
+			else if(Tag.INT.equals(tag) && SIMPLE_INTEGER.matcher(value).matches()) {
+				map.put(key, createInteger(value));
+			}
+			else if(Tag.BOOL.equals(tag)) {
+				final String lowerCase = value.toLowerCase(Locale.ROOT);
+				map.put(key, lowerCase.equals("true") || lowerCase.equals("yes") || lowerCase.equals("on"));
+			}
+			else if(Tag.NULL.equals(tag)) {
+				map.put(key, null);
+			}
+			else {
+				return null;
+			}
+		}
+		return map.isEmpty() ? null : map;
+	}
+
+	/**
+	 * Checks whether a value is a plain scalar that fits on a single line.
+	 *
+	 * @param value The value (trimmed).
+	 *
+	 * @return Whether the value is a plain scalar that fits on a single line.
+	 */
+
+	private static boolean isSimpleScalar(final String value) {
+		if(value.isEmpty() || INDICATORS.indexOf(value.charAt(0)) != -1 || value.endsWith(":")) {
+			return false;
+		}
+		for(int i = 0; i != value.length(); i++) {
+			final char character = value.charAt(i);
+			if(Character.isISOControl(character) || character == '\uFEFF') {
+				return false;
+			}
+			// A ": " would start a nested mapping and a " #" would start a comment.
+			if(character == ':' && Character.isWhitespace(value.charAt(i + 1))) {
+				return false;
+			}
+			if(character == '#' && Character.isWhitespace(value.charAt(i - 1))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Creates the smallest integer type that holds a decimal integer (the same way SnakeYAML does).
+	 *
+	 * @param value The decimal integer.
+	 *
+	 * @return The integer.
+	 */
+
+	private static Number createInteger(final String value) {
+		try {
+			return Integer.valueOf(value);
+		}
+		catch(final NumberFormatException ex) {
+			try {
+				return Long.valueOf(value);
+			}
+			catch(final NumberFormatException ex2) {
+				return new BigInteger(value);
+			}
+		}
+	}
+
+}